@@ -1,12 +1,26 @@
 package io.jenkins.plugins.opsbox.utility.contributor;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
 import com.syhuang.hudson.plugins.listgitbranchesparameter.ListGitBranchesParameterDefinition;
 import com.syhuang.hudson.plugins.listgitbranchesparameter.ListGitBranchesParameterValue;
 import hudson.EnvVars;
 import hudson.Extension;
 import hudson.model.*;
+import hudson.model.listeners.RunListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import io.jenkins.plugins.opsbox.utility.metrics.OpsboxMetrics;
+import io.jenkins.plugins.opsbox.utility.parameter.BuildNameSources;
+import io.jenkins.plugins.opsbox.utility.parameter.DisplayNameIndex;
+import io.jenkins.plugins.opsbox.utility.parameter.JobBuildNameParameterDefinition;
+import io.jenkins.plugins.opsbox.utility.parameter.JobBuildNameParameterValue;
+import jenkins.model.Jenkins;
+import org.springframework.security.access.AccessDeniedException;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
@@ -15,31 +29,64 @@ import java.util.logging.Logger;
 public class ListGitBranchesEnvironmentContributor extends EnvironmentContributor {
 
     private static final Logger LOGGER = Logger.getLogger(ListGitBranchesEnvironmentContributor.class.getName());
+
+    // 构建开始后参数值和定义都不会再变化，按构建缓存计算结果；弱引用键，构建对象被回收后自动清除
+    private static final Cache<Run<?, ?>, Map<String, String>> CONTRIBUTED = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    // 只包含 refs/heads/ 和 refs/tags/ 两条规则
+    private static final RefNormalizer PARAM_VALUE = new RefNormalizer(RefNormalizer.DEFAULT_RULES.subList(0, 2));
+
     @Override
     public void buildEnvironmentFor(Run run, EnvVars envVars, TaskListener listener) {
-        Map<String, String> configs = getParametersConfigs(run);
-        if (!configs.isEmpty()) {
-            envVars.putAll(configs);
+        long start = System.nanoTime();
+        Map<String, String> contributed = getContributed(run);
+        if (!contributed.isEmpty()) {
+            envVars.putAll(contributed);
         }
+        OpsboxMetrics.ENVIRONMENT_TIME.recordSince(start);
+    }
 
-        Map<String, String> values = getParametersValue(run);
-        if (!values.isEmpty()) {
-            envVars.putAll(values);
-        }
+    public static long getCachedRunCount() {
+        return CONTRIBUTED.size();
     }
 
-    public static String cleanBranchName(String branch) {
-        if (branch == null || branch.isEmpty()) {
-            return branch;
+    static void clear() {
+        CONTRIBUTED.invalidateAll();
+    }
+
+    private Map<String, String> getContributed(Run<?, ?> run) {
+        Map<String, String> contributed = CONTRIBUTED.getIfPresent(run);
+        if (contributed != null) {
+            OpsboxMetrics.ENVIRONMENT_RUN_HIT.increment();
+            return contributed;
+        }
+        OpsboxMetrics.ENVIRONMENT_RUN_MISS.increment();
+
+        Map<String, String> configs = getParametersConfigs(run);
+        Map<String, String> values = getParametersValue(run);
+        if (configs.isEmpty() && values.isEmpty()) {
+            contributed = Collections.emptyMap();
+        } else {
+            Map<String, String> combined = Maps.newHashMapWithExpectedSize(configs.size() + values.size());
+            combined.putAll(configs);
+            combined.putAll(values);
+            contributed = Collections.unmodifiableMap(combined);
         }
 
-        if (branch.startsWith("refs/heads/")) {
-            return branch.replace("refs/heads/", "");
-        } else if (branch.startsWith("refs/tags/")) {
-            return branch.replace("refs/tags/", "");
+        // 提交在构建开始时解析，还没有结果时不缓存，之后的调用可以取得解析结果
+        if (!run.isBuilding() || run.getAction(ResolvedCommitsAction.class) != null || getGitRefs(run).isEmpty()) {
+            CONTRIBUTED.put(run, contributed);
         }
+        return contributed;
+    }
 
-        return branch;
+    /**
+     * {@code {PARAM}} 的值：与之前一致，只去掉 {@code refs/heads/} 和 {@code refs/tags/} 前缀。
+     */
+    public static String cleanBranchName(String branch) {
+        return PARAM_VALUE.normalize(branch);
     }
 
     private Map<String, String> getParametersValue(Run<?, ?> run) {
@@ -50,19 +97,182 @@ public class ListGitBranchesEnvironmentContributor extends EnvironmentContributo
         if (parametersAction != null) {
             for (ParameterValue param : parametersAction.getParameters()) {
                 if (param instanceof ListGitBranchesParameterValue) {
-                    params.put(param.getName(), cleanBranchName(param.getValue().toString()));
+                    String ref = param.getValue().toString();
+                    params.put(param.getName(), cleanBranchName(ref));
+                    // 按全部规则规范化的名称放在单独的变量中，已有流水线使用的 {PARAM} 不变
+                    RefNormalizer.Match match = RefNormalizer.getDefault().match(ref);
+                    if (match != null) {
+                        params.put("PARAMS__" + param.getName() + "__NAME", match.getName());
+                        params.put("PARAMS__" + param.getName() + "__REF_TYPE", match.getType().getLabel());
+                    }
+                } else if (param instanceof StringParameterValue stringParam) {
+                    // 包括此前记录为普通字符串值的 jobBuildNameParam
+                    putBuildMetadata(params, stringParam.getName(), resolveBuild(run, stringParam));
                 }
             }
         }
+        // 选中分支的完整引用和提交只在构建开始时解析一次，没有记录的构建不再补充，
+        // 否则会得到分支当前的提交而不是构建时的提交
+        ResolvedCommitsAction resolved = run.getAction(ResolvedCommitsAction.class);
+        if (resolved != null) {
+            params.putAll(resolved.getVariables());
+        }
         return params;
     }
 
-    private Map<String, String> getParametersConfigs(Run<?, ?> run) {
-        Map<String, String> params = Maps.newHashMap();
+    private static Map<String, String> getGitRefs(Run<?, ?> run) {
+        Map<String, String> gitRefs = Maps.newHashMap();
+        ParametersAction parametersAction = run.getAction(ParametersAction.class);
+        if (parametersAction != null) {
+            for (ParameterValue param : parametersAction.getParameters()) {
+                if (param instanceof ListGitBranchesParameterValue) {
+                    gitRefs.put(param.getName(), param.getValue().toString());
+                }
+            }
+        }
+        return gitRefs;
+    }
+
+    /**
+     * 解析选中分支的完整引用和提交，只使用有效期内的缓存，不同仓库并发获取；
+     * 获取失败的参数写入构建日志，不记录结果。
+     */
+    static Map<String, String> resolveCommits(Run<?, ?> run, TaskListener listener) {
+        Map<String, String> gitRefs = getGitRefs(run);
+        if (gitRefs.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, String> configs = getParametersConfigs(run);
+        Map<String, RemoteRefCache.Key> remotes = Maps.newHashMap();
+        for (String name : gitRefs.keySet()) {
+            String prefix = "PARAMS__" + name + "__";
+            RemoteRefCache.Key key = RemoteRefCache.Key.of(configs.get(prefix + "REMOTE_URL"), configs.get(prefix + "CREDENTIALS_ID"));
+            if (key != null) {
+                remotes.put(name, key);
+            }
+        }
+        Map<RemoteRefCache.Key, Map<String, String>> refsByRemote = RemoteRefCache.getFreshRefs(run.getParent(), remotes.values());
+
+        Map<String, String> commits = Maps.newHashMap();
+        for (Map.Entry<String, RemoteRefCache.Key> remote : remotes.entrySet()) {
+            String prefix = "PARAMS__" + remote.getKey() + "__";
+            Map<String, String> refs = refsByRemote.get(remote.getValue());
+            if (refs == null) {
+                listener.getLogger().println(Messages.ListGitBranchesEnvironmentContributor_refsUnavailable(
+                        remote.getValue().remoteUrl(), prefix + "COMMIT"));
+                continue;
+            }
+            ResolvedRef ref = resolveRef(refs, gitRefs.get(remote.getKey()));
+            if (ref != null) {
+                commits.put(prefix + "REF", ref.ref());
+                commits.put(prefix + "COMMIT", ref.commit());
+            }
+        }
+        return commits;
+    }
+
+    /**
+     * 在构建开始时解析提交并记录在构建中，计算环境变量时不再访问远程仓库。
+     */
+    @Extension
+    public static final class CommitResolver extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onStarted(Run<?, ?> run, TaskListener listener) {
+            if (run.getAction(ResolvedCommitsAction.class) != null) {
+                return;
+            }
+            Map<String, String> commits = resolveCommits(run, listener);
+            if (!commits.isEmpty()) {
+                run.addOrReplaceAction(new ResolvedCommitsAction(commits));
+            }
+        }
+    }
+
+    record ResolvedRef(String ref, String commit) {
+    }
+
+    /**
+     * 把参数值还原为远程仓库中的完整引用；附注标签取其指向的提交。
+     */
+    static ResolvedRef resolveRef(Map<String, String> refs, String value) {
+        List<String> candidates = new ArrayList<>(3);
+        if (value.startsWith("refs/")) {
+            candidates.add(value);
+        } else {
+            RefNormalizer.Match match = RefNormalizer.getDefault().match(value);
+            String name = match == null ? value : match.getName();
+            if (match == null || match.getType() != RefNormalizer.RefType.TAG) {
+                candidates.add("refs/heads/" + name);
+            }
+            candidates.add("refs/tags/" + name);
+        }
+
+        for (String candidate : candidates) {
+            String commit = refs.get(candidate + "^{}");
+            if (commit == null) {
+                commit = refs.get(candidate);
+            }
+            if (commit != null) {
+                return new ResolvedRef(candidate, commit);
+            }
+        }
+        return null;
+    }
 
-        Job<?, ?> job = run.getParent();
+    /**
+     * 参数值记录了构建号时直接按构建号取得；否则按所属作业的参数定义，通过显示名称索引查找。
+     * 参数定义不是 jobBuildNameParam 时返回 {@code null}。
+     * 结果按构建缓存并共享给之后的所有调用方，因此以系统身份解析，不取决于当前调用方的权限；
+     * 仍然无权访问时不导出元数据。
+     */
+    private static Run<?, ?> resolveBuild(Run<?, ?> run, StringParameterValue value) {
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            if (value instanceof JobBuildNameParameterValue buildNameValue && buildNameValue.hasBuild()) {
+                return buildNameValue.getBuild();
+            }
+
+            ParametersDefinitionProperty property = run.getParent().getProperty(ParametersDefinitionProperty.class);
+            ParameterDefinition definition = property == null ? null : property.getParameterDefinition(value.getName());
+            if (definition instanceof JobBuildNameParameterDefinition buildNameDef) {
+                List<Job<?, ?>> jobs = BuildNameSources.resolve(buildNameDef.getJobName(), run.getParent().getParent());
+                return DisplayNameIndex.resolve(jobs, value.getValue());
+            }
+            return null;
+        } catch (AccessDeniedException e) {
+            LOGGER.fine(() -> "Cannot read the upstream build of " + value.getName() + " in " + run.getExternalizableId());
+            return null;
+        }
+    }
+
+    private static void putBuildMetadata(Map<String, String> params, String name, Run<?, ?> build) {
+        if (build == null) {
+            return;
+        }
+
+        String prefix = "PARAMS__" + name + "__";
+        params.put(prefix + "JOB_NAME", build.getParent().getFullName());
+        params.put(prefix + "BUILD_NUMBER", String.valueOf(build.getNumber()));
+        params.put(prefix + "TIMESTAMP", String.valueOf(build.getTimeInMillis()));
+        params.put(prefix + "ARTIFACTS_DIR", build.getArtifactsDir().getAbsolutePath());
+        if (build.getResult() != null) {
+            params.put(prefix + "RESULT", build.getResult().toString());
+        }
+        String rootUrl = Jenkins.get().getRootUrl();
+        if (rootUrl != null) {
+            params.put(prefix + "BUILD_URL", rootUrl + build.getUrl());
+        }
+    }
+
+    private static Map<String, String> getParametersConfigs(Run<?, ?> run) {
+        // 配置只随作业配置变化，按作业缓存
+        return ParametersConfigCache.get(run.getParent(), ListGitBranchesEnvironmentContributor::computeParametersConfigs);
+    }
+
+    private static Map<String, String> computeParametersConfigs(ParametersDefinitionProperty paramProp) {
+        Map<String, String> params = Maps.newHashMap();
 
-        ParametersDefinitionProperty paramProp = job.getProperty(ParametersDefinitionProperty.class);
         if (paramProp == null) {
             LOGGER.fine("Job does not have any parameter definitions.");
             return params;
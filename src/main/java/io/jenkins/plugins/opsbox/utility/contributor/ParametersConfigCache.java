@@ -0,0 +1,94 @@
+package io.jenkins.plugins.opsbox.utility.contributor;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.Item;
+import hudson.model.Job;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.model.Saveable;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * 按作业缓存由参数定义生成的 PARAMS__ 配置环境变量，作业配置保存时失效。
+ * 没有 Git 分支参数的作业缓存为空映射，后续调用直接返回。
+ */
+public final class ParametersConfigCache {
+
+    private static final ConcurrentMap<Job<?, ?>, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    private ParametersConfigCache() {
+    }
+
+    /**
+     * 同时记录生成时的参数属性实例，即使错过了保存事件，属性被替换后也会重新计算。
+     */
+    private record Entry(ParametersDefinitionProperty property, Map<String, String> configs) {
+    }
+
+    static Map<String, String> get(Job<?, ?> job, Function<ParametersDefinitionProperty, Map<String, String>> loader) {
+        ParametersDefinitionProperty property = job.getProperty(ParametersDefinitionProperty.class);
+
+        Entry entry = ENTRIES.get(job);
+        if (entry != null && entry.property() == property) {
+            return entry.configs();
+        }
+
+        Map<String, String> configs = loader.apply(property);
+        configs = configs.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(configs);
+        ENTRIES.put(job, new Entry(property, configs));
+        return configs;
+    }
+
+    public static void invalidate(Job<?, ?> job) {
+        ENTRIES.remove(job);
+    }
+
+    public static void clear() {
+        ENTRIES.clear();
+    }
+
+    public static int size() {
+        return ENTRIES.size();
+    }
+
+    @Extension
+    public static final class SaveableListenerImpl extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Job<?, ?> job) {
+                invalidate(job);
+            }
+        }
+    }
+
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onLoaded() {
+            clear();
+        }
+
+        @Override
+        public void onUpdated(Item item) {
+            if (item instanceof Job<?, ?> job) {
+                invalidate(job);
+            }
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            if (item instanceof Job<?, ?> job) {
+                invalidate(job);
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package io.jenkins.plugins.opsbox.utility.contributor;
+
+import jenkins.util.SystemProperties;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Git 引用名称规范化：把规则编译成前缀树，一次遍历完成匹配，匹配过程不分配对象。
+ * <p>
+ * 规则模式以 {@code /} 结尾时匹配前缀，剩余部分作为名称（如 {@code refs/heads/}）；否则需要完整匹配。
+ * 模式中的 {@code *} 匹配一个路径段，可以在名称模板中通过 {@code *} 引用（如 {@code refs/pull/*}{@code /head} → {@code PR-*}）。
+ * 额外的规则可以通过系统属性 {@code io.jenkins.plugins.opsbox.utility.contributor.RefNormalizer.rules} 配置，
+ * 格式为 {@code 模式=类型[:模板]}，多条规则用逗号分隔，类型为 branch、tag 或 pr。
+ */
+public final class RefNormalizer {
+
+    private static final Logger LOGGER = Logger.getLogger(RefNormalizer.class.getName());
+
+    private static final char WILDCARD = '*';
+
+    public enum RefType {
+        BRANCH, TAG, PR;
+
+        public String getLabel() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public record Rule(String pattern, RefType type, String template) {
+    }
+
+    /**
+     * 一次匹配的结果：命中的规则以及通配段和剩余部分在原字符串中的位置。
+     */
+    public record Match(Rule rule, String ref, int captureStart, int captureEnd, int restStart) {
+
+        public RefType getType() {
+            return rule.type();
+        }
+
+        public String getName() {
+            if (rule.template() == null) {
+                return ref.substring(restStart);
+            }
+            String capture = captureStart < 0 ? "" : ref.substring(captureStart, captureEnd);
+            return rule.template().replace(String.valueOf(WILDCARD), capture);
+        }
+    }
+
+    static final List<Rule> DEFAULT_RULES = List.of(
+            new Rule("refs/heads/", RefType.BRANCH, null),
+            new Rule("refs/tags/", RefType.TAG, null),
+            new Rule("refs/remotes/origin/", RefType.BRANCH, null),
+            new Rule("origin/", RefType.BRANCH, null),
+            new Rule("refs/pull/*/head", RefType.PR, "PR-*"),
+            new Rule("refs/pull/*/merge", RefType.PR, "PR-*"),
+            new Rule("refs/merge-requests/*/head", RefType.PR, "MR-*"),
+            new Rule("refs/merge-requests/*/merge", RefType.PR, "MR-*")
+    );
+
+    private static final RefNormalizer DEFAULT = new RefNormalizer(withConfiguredRules(DEFAULT_RULES,
+            SystemProperties.getString(RefNormalizer.class.getName() + ".rules")));
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private Node wildcard;
+        // 模式以 / 结尾，匹配到此处后剩余部分即为名称
+        private Rule prefixRule;
+        // 模式在此处结束，要求输入也在此处结束
+        private Rule exactRule;
+    }
+
+    private final Node root = new Node();
+
+    public RefNormalizer(List<Rule> rules) {
+        for (Rule rule : rules) {
+            Node node = root;
+            String pattern = rule.pattern();
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == WILDCARD) {
+                    if (node.wildcard == null) {
+                        node.wildcard = new Node();
+                    }
+                    node = node.wildcard;
+                } else {
+                    node = node.children.computeIfAbsent(c, k -> new Node());
+                }
+            }
+            if (pattern.endsWith("/")) {
+                node.prefixRule = rule;
+            } else {
+                node.exactRule = rule;
+            }
+        }
+    }
+
+    public static RefNormalizer getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * 返回最长匹配的规则，没有规则匹配时返回 {@code null}。
+     */
+    public Match match(String ref) {
+        if (ref == null || ref.isEmpty()) {
+            return null;
+        }
+        return match(ref, root, 0, -1, -1);
+    }
+
+    public String normalize(String ref) {
+        Match match = match(ref);
+        return match == null ? ref : match.getName();
+    }
+
+    private Match match(String ref, Node node, int pos, int captureStart, int captureEnd) {
+        if (pos == ref.length()) {
+            return node.exactRule == null ? null : new Match(node.exactRule, ref, captureStart, captureEnd, pos);
+        }
+
+        // 优先尝试更长的匹配
+        Node child = node.children.get(ref.charAt(pos));
+        if (child != null) {
+            Match match = match(ref, child, pos + 1, captureStart, captureEnd);
+            if (match != null) {
+                return match;
+            }
+        }
+
+        if (node.wildcard != null) {
+            int end = pos;
+            while (end < ref.length() && ref.charAt(end) != '/') {
+                end++;
+            }
+            if (end > pos) {
+                Match match = match(ref, node.wildcard, end, pos, end);
+                if (match != null) {
+                    return match;
+                }
+            }
+        }
+
+        return node.prefixRule == null ? null : new Match(node.prefixRule, ref, captureStart, captureEnd, pos);
+    }
+
+    static List<Rule> withConfiguredRules(List<Rule> defaults, String configured) {
+        Map<String, Rule> rules = new LinkedHashMap<>();
+        for (Rule rule : defaults) {
+            rules.put(rule.pattern(), rule);
+        }
+
+        if (configured != null && !configured.isBlank()) {
+            for (String spec : configured.split(",")) {
+                Rule rule = parseRule(spec.trim());
+                if (rule != null) {
+                    rules.put(rule.pattern(), rule);
+                }
+            }
+        }
+        return new ArrayList<>(rules.values());
+    }
+
+    static Rule parseRule(String spec) {
+        int eq = spec.lastIndexOf('=');
+        if (eq <= 0) {
+            LOGGER.warning("Ignoring invalid ref rule: " + spec);
+            return null;
+        }
+
+        String pattern = spec.substring(0, eq).trim();
+        String typeAndTemplate = spec.substring(eq + 1).trim();
+        int colon = typeAndTemplate.indexOf(':');
+        String type = colon < 0 ? typeAndTemplate : typeAndTemplate.substring(0, colon);
+        String template = colon < 0 ? null : typeAndTemplate.substring(colon + 1);
+
+        try {
+            return new Rule(pattern, RefType.valueOf(type.trim().toUpperCase(Locale.ROOT)), template);
+        } catch (IllegalArgumentException e) {
+            LOGGER.warning("Ignoring ref rule with unknown type: " + spec);
+            return null;
+        }
+    }
+}
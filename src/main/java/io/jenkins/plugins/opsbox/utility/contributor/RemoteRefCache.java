@@ -0,0 +1,389 @@
+package io.jenkins.plugins.opsbox.utility.contributor;
+
+import com.cloudbees.plugins.credentials.CredentialsMatchers;
+import com.cloudbees.plugins.credentials.CredentialsProvider;
+import com.cloudbees.plugins.credentials.common.StandardCredentials;
+import com.cloudbees.plugins.credentials.domains.URIRequirementBuilder;
+import hudson.EnvVars;
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.Item;
+import hudson.model.TaskListener;
+import hudson.plugins.git.GitTool;
+import hudson.security.ACL;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import io.jenkins.plugins.opsbox.utility.metrics.OpsboxMetrics;
+import jenkins.model.Jenkins;
+import jenkins.util.ContextResettingExecutorService;
+import jenkins.util.SystemProperties;
+import jenkins.util.Timer;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONException;
+import net.sf.json.JSONObject;
+import org.eclipse.jgit.lib.ObjectId;
+import org.jenkinsci.plugins.gitclient.Git;
+import org.jenkinsci.plugins.gitclient.GitClient;
+
+import javax.annotation.CheckForNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 控制器范围的远程引用缓存，按仓库地址和凭证 ID 保存 {@code ls-remote} 的结果。
+ * <ul>
+ *     <li>{@link #TTL_SECONDS} 内直接返回缓存；</li>
+ *     <li>过期但未超过 {@link #MAX_STALE_SECONDS} 时先返回旧结果，同时在后台刷新；</li>
+ *     <li>同一仓库同时只有一次获取，并发的调用共用结果；</li>
+ *     <li>缓存定期写入 {@code JENKINS_HOME/caches} 下的快照，重启后作为旧结果继续使用。</li>
+ * </ul>
+ */
+public final class RemoteRefCache {
+
+    private static final Logger LOGGER = Logger.getLogger(RemoteRefCache.class.getName());
+
+    private static final String PREFIX = RemoteRefCache.class.getName();
+
+    // 非 final，可以在脚本控制台中调整
+    static long TTL_SECONDS = SystemProperties.getLong(PREFIX + ".ttlSeconds", 60L);
+    static long MAX_STALE_SECONDS = SystemProperties.getLong(PREFIX + ".maxStaleSeconds", TimeUnit.DAYS.toSeconds(1));
+    static long FETCH_TIMEOUT_SECONDS = SystemProperties.getLong(PREFIX + ".fetchTimeoutSeconds", 30L);
+    static int MAX_REMOTES = SystemProperties.getInteger(PREFIX + ".maxRemotes", 200);
+    // 使用的 Git 工具，为空时使用默认安装；设为 jgit 时不依赖命令行 git
+    static String GIT_TOOL = SystemProperties.getString(PREFIX + ".gitTool");
+
+    private static final String SNAPSHOT_FILE = "caches/opsbox-remote-refs.json";
+    private static final long SNAPSHOT_DELAY_SECONDS = 30;
+
+    private static final int THREADS = SystemProperties.getInteger(PREFIX + ".threads", 4);
+
+    private static final ExecutorService EXECUTOR;
+
+    static {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamingThreadFactory(new DaemonThreadFactory(), "RemoteRefCache"));
+        pool.allowCoreThreadTimeOut(true);
+        EXECUTOR = new ContextResettingExecutorService(pool);
+    }
+
+    private static final ConcurrentMap<Key, Entry> ENTRIES = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Key, CompletableFuture<Entry>> IN_FLIGHT = new ConcurrentHashMap<>();
+    private static final AtomicBoolean SNAPSHOT_SCHEDULED = new AtomicBoolean();
+
+    private RemoteRefCache() {
+    }
+
+    /**
+     * 仓库地址和凭证 ID；没有凭证时为 {@code null}。
+     */
+    public record Key(String remoteUrl, String credentialsId) {
+
+        /**
+         * 去掉首尾空白，空白的凭证 ID 视为没有凭证；地址为空时返回 {@code null}。
+         */
+        @CheckForNull
+        public static Key of(String remoteUrl, @CheckForNull String credentialsId) {
+            if (remoteUrl == null || remoteUrl.isBlank()) {
+                return null;
+            }
+            return new Key(remoteUrl.trim(), credentialsId == null || credentialsId.isBlank() ? null : credentialsId.trim());
+        }
+    }
+
+    /**
+     * 一次获取的结果：引用全名到提交 SHA 的不可变映射。
+     */
+    record Entry(Map<String, String> refs, long fetchedAt) {
+
+        long age() {
+            return System.currentTimeMillis() - fetchedAt;
+        }
+    }
+
+    /**
+     * 返回仓库的引用（引用全名到 SHA）。凭证在 {@code context} 中解析，解析不到时不返回缓存，
+     * 避免使用其他作业的凭证获取的结果。没有可用结果时返回 {@code null}。
+     */
+    @CheckForNull
+    public static Map<String, String> getRefs(@CheckForNull Item context, String remoteUrl, @CheckForNull String credentialsId) {
+        Key key = Key.of(remoteUrl, credentialsId);
+        return key == null ? null : getRefs(context, List.of(key)).get(key);
+    }
+
+    /**
+     * 同时获取多个仓库的引用：未命中的仓库并发获取，总共最多等待 {@link #FETCH_TIMEOUT_SECONDS}。
+     * 返回的映射不包含没有可用结果的仓库。
+     */
+    public static Map<Key, Map<String, String>> getRefs(@CheckForNull Item context, Collection<Key> keys) {
+        return getRefs(context, keys, true);
+    }
+
+    /**
+     * 与 {@link #getRefs(Item, Collection)} 相同，但只使用 {@link #TTL_SECONDS} 内的结果，
+     * 其余仓库同步获取，失败时不退回旧结果。用于需要记录下来的提交，避免记录分支已经离开的提交。
+     */
+    public static Map<Key, Map<String, String>> getFreshRefs(@CheckForNull Item context, Collection<Key> keys) {
+        return getRefs(context, keys, false);
+    }
+
+    private static Map<Key, Map<String, String>> getRefs(@CheckForNull Item context, Collection<Key> keys, boolean allowStale) {
+        Map<Key, Map<String, String>> results = new HashMap<>();
+        Map<Key, CompletableFuture<Entry>> pending = new LinkedHashMap<>();
+        Map<Key, Entry> expired = new HashMap<>();
+
+        for (Key key : new LinkedHashSet<>(keys)) {
+            StandardCredentials credentials = null;
+            if (key.credentialsId() != null) {
+                credentials = lookupCredentials(context, key.remoteUrl(), key.credentialsId());
+                if (credentials == null) {
+                    LOGGER.fine(() -> "Credentials " + key.credentialsId() + " are not available to "
+                            + (context == null ? "Jenkins" : context.getFullName()));
+                    continue;
+                }
+            }
+
+            Entry entry = ENTRIES.get(key);
+            if (entry != null && entry.age() <= TimeUnit.SECONDS.toMillis(TTL_SECONDS)) {
+                OpsboxMetrics.REFS_HIT.increment();
+                results.put(key, entry.refs());
+            } else if (allowStale && entry != null && entry.age() <= TimeUnit.SECONDS.toMillis(MAX_STALE_SECONDS)) {
+                // 先返回旧结果，后台刷新
+                OpsboxMetrics.REFS_STALE.increment();
+                refresh(key, credentials);
+                results.put(key, entry.refs());
+            } else {
+                OpsboxMetrics.REFS_MISS.increment();
+                pending.put(key, refresh(key, credentials));
+                if (allowStale && entry != null) {
+                    expired.put(key, entry);
+                }
+            }
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(FETCH_TIMEOUT_SECONDS);
+        boolean interrupted = false;
+        for (Map.Entry<Key, CompletableFuture<Entry>> fetch : pending.entrySet()) {
+            Key key = fetch.getKey();
+            if (!interrupted) {
+                try {
+                    results.put(key, fetch.getValue().get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS).refs());
+                    continue;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    LOGGER.log(Level.FINE, "Failed to list refs of " + key.remoteUrl(), e.getCause());
+                } catch (TimeoutException e) {
+                    LOGGER.fine(() -> "Timed out listing refs of " + key.remoteUrl());
+                }
+            }
+            // 获取失败时退回到超出期限的旧结果
+            Entry entry = expired.get(key);
+            if (entry != null) {
+                results.put(key, entry.refs());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 同一仓库已有进行中的获取时直接返回它，否则提交一次新的获取。
+     */
+    static CompletableFuture<Entry> refresh(Key key, StandardCredentials credentials) {
+        CompletableFuture<Entry> created = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = IN_FLIGHT.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+
+        try {
+            EXECUTOR.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    Entry entry = new Entry(fetch(key, credentials), System.currentTimeMillis());
+                    OpsboxMetrics.REFS_FETCH_TIME.recordSince(start);
+                    ENTRIES.put(key, entry);
+                    evict();
+                    scheduleSnapshot();
+                    created.complete(entry);
+                } catch (Throwable e) {
+                    OpsboxMetrics.REFS_FETCH_FAILED.increment();
+                    created.completeExceptionally(e);
+                } finally {
+                    IN_FLIGHT.remove(key, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            IN_FLIGHT.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private static Map<String, String> fetch(Key key, StandardCredentials credentials) throws IOException, InterruptedException {
+        GitClient git = Git.with(TaskListener.NULL, new EnvVars()).in(workDir()).using(gitExe()).getClient();
+        if (credentials != null) {
+            git.addDefaultCredentials(credentials);
+        }
+
+        Map<String, ObjectId> remote = git.getRemoteReferences(key.remoteUrl(), null, false, false);
+        Map<String, String> refs = new HashMap<>(remote.size() * 4 / 3 + 1);
+        remote.forEach((ref, id) -> refs.put(ref, id.name()));
+        LOGGER.fine(() -> "Listed " + refs.size() + " refs of " + key.remoteUrl());
+        return Collections.unmodifiableMap(refs);
+    }
+
+    private static String gitExe() {
+        if (GIT_TOOL != null && !GIT_TOOL.isBlank()) {
+            return GIT_TOOL;
+        }
+        GitTool tool = GitTool.getDefaultInstallation();
+        return tool == null ? "git" : tool.getGitExe();
+    }
+
+    private static File workDir() throws IOException {
+        File dir = new File(Jenkins.get().getRootDir(), "caches");
+        Files.createDirectories(dir.toPath());
+        return dir;
+    }
+
+    @CheckForNull
+    static StandardCredentials lookupCredentials(@CheckForNull Item context, String remoteUrl, String credentialsId) {
+        List<StandardCredentials> candidates = context == null
+                ? CredentialsProvider.lookupCredentialsInItemGroup(StandardCredentials.class, Jenkins.get(), ACL.SYSTEM2,
+                        URIRequirementBuilder.fromUri(remoteUrl).build())
+                : CredentialsProvider.lookupCredentialsInItem(StandardCredentials.class, context, ACL.SYSTEM2,
+                        URIRequirementBuilder.fromUri(remoteUrl).build());
+        return CredentialsMatchers.firstOrNull(candidates, CredentialsMatchers.withId(credentialsId));
+    }
+
+    /**
+     * 超过 {@link #MAX_REMOTES} 时丢弃最久没有获取的仓库。
+     */
+    private static void evict() {
+        int excess = ENTRIES.size() - MAX_REMOTES;
+        if (excess <= 0) {
+            return;
+        }
+        ENTRIES.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().fetchedAt()))
+                .limit(excess)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(ENTRIES::remove);
+    }
+
+    public static void invalidate(String remoteUrl) {
+        ENTRIES.keySet().removeIf(key -> key.remoteUrl().equals(remoteUrl));
+    }
+
+    public static void clear() {
+        ENTRIES.clear();
+    }
+
+    public static int size() {
+        return ENTRIES.size();
+    }
+
+    static File snapshotFile() {
+        return new File(Jenkins.get().getRootDir(), SNAPSHOT_FILE);
+    }
+
+    /**
+     * 合并短时间内的多次获取，只写一次快照。
+     */
+    private static void scheduleSnapshot() {
+        if (SNAPSHOT_SCHEDULED.compareAndSet(false, true)) {
+            Timer.get().schedule(() -> {
+                SNAPSHOT_SCHEDULED.set(false);
+                saveSnapshot();
+            }, SNAPSHOT_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    static void saveSnapshot() {
+        JSONArray remotes = new JSONArray();
+        ENTRIES.forEach((key, entry) -> {
+            JSONObject json = new JSONObject();
+            json.put("remoteUrl", key.remoteUrl());
+            json.put("credentialsId", key.credentialsId() == null ? "" : key.credentialsId());
+            json.put("fetchedAt", entry.fetchedAt());
+            json.put("refs", JSONObject.fromObject(entry.refs()));
+            remotes.add(json);
+        });
+
+        File file = snapshotFile();
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+            Files.writeString(tmp.toPath(), remotes.toString(), StandardCharsets.UTF_8);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to save remote ref snapshot to " + file, e);
+        }
+    }
+
+    /**
+     * 启动时读入快照，已有的结果不会被覆盖；超出 {@link #MAX_STALE_SECONDS} 的记录会被忽略。
+     */
+    @Initializer(after = InitMilestone.SYSTEM_CONFIG_LOADED)
+    public static void loadSnapshot() {
+        File file = snapshotFile();
+        if (!file.isFile()) {
+            return;
+        }
+
+        try {
+            JSONArray remotes = JSONArray.fromObject(Files.readString(file.toPath(), StandardCharsets.UTF_8));
+            List<String> loaded = new ArrayList<>();
+            for (Object o : remotes) {
+                JSONObject json = (JSONObject) o;
+                Entry entry = new Entry(toRefs(json.getJSONObject("refs")), json.getLong("fetchedAt"));
+                if (entry.age() > TimeUnit.SECONDS.toMillis(MAX_STALE_SECONDS)) {
+                    continue;
+                }
+                String credentialsId = json.optString("credentialsId", "");
+                Key key = new Key(json.getString("remoteUrl"), credentialsId.isEmpty() ? null : credentialsId);
+                if (ENTRIES.putIfAbsent(key, entry) == null) {
+                    loaded.add(key.remoteUrl());
+                }
+            }
+            LOGGER.fine(() -> "Loaded refs of " + loaded.size() + " remotes from " + file);
+        } catch (IOException | JSONException | ClassCastException e) {
+            LOGGER.log(Level.WARNING, "Ignoring unreadable remote ref snapshot " + file, e);
+        }
+    }
+
+    private static Map<String, String> toRefs(JSONObject json) {
+        Map<String, String> refs = new HashMap<>(json.size() * 4 / 3 + 1);
+        for (Object key : json.keySet()) {
+            refs.put((String) key, json.getString((String) key));
+        }
+        return Collections.unmodifiableMap(refs);
+    }
+}
@@ -0,0 +1,25 @@
+package io.jenkins.plugins.opsbox.utility.contributor;
+
+import hudson.model.InvisibleAction;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 构建开始时为 Git 分支参数解析出的完整引用和提交，保存在构建中。
+ * 之后各阶段以及重启后恢复的流水线都使用同一个提交，不会因为分支移动而不一致。
+ * 需要在重启后保留，所以与按构建缓存的环境变量不同，这里使用保存在构建中的动作。
+ */
+public class ResolvedCommitsAction extends InvisibleAction {
+
+    private final Map<String, String> variables;
+
+    public ResolvedCommitsAction(Map<String, String> variables) {
+        this.variables = new HashMap<>(variables);
+    }
+
+    public Map<String, String> getVariables() {
+        return Collections.unmodifiableMap(variables);
+    }
+}
@@ -0,0 +1,46 @@
+package io.jenkins.plugins.opsbox.utility.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricSet;
+import hudson.Extension;
+import jenkins.metrics.api.MetricProvider;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 安装了 Metrics 插件时，把插件指标以 {@code opsbox.*} 仪表的形式注册到 Metrics 插件。
+ */
+@Extension(optional = true)
+public class OpsboxMetricProvider extends MetricProvider {
+
+    private static final String PREFIX = "opsbox.";
+
+    @Nonnull
+    @Override
+    public MetricSet getMetricSet() {
+        return () -> {
+            Map<String, Metric> metrics = new HashMap<>();
+            for (Map.Entry<String, Stat> entry : OpsboxMetrics.getStats().entrySet()) {
+                String name = PREFIX + entry.getKey();
+                Stat stat = entry.getValue();
+                metrics.put(name + ".count", (Gauge<Long>) stat::getCount);
+                metrics.put(name + ".mean", (Gauge<Double>) stat::getMean);
+                metrics.put(name + ".p95", (Gauge<Long>) () -> stat.getPercentile(0.95));
+                metrics.put(name + ".max", (Gauge<Long>) stat::getMax);
+            }
+            for (Map.Entry<String, LongAdder> entry : OpsboxMetrics.getCounters().entrySet()) {
+                LongAdder counter = entry.getValue();
+                metrics.put(PREFIX + entry.getKey(), (Gauge<Long>) counter::sum);
+            }
+            for (Map.Entry<String, Supplier<Number>> entry : OpsboxMetrics.getGauges().entrySet()) {
+                metrics.put(PREFIX + entry.getKey(), (Gauge<Number>) entry.getValue()::get);
+            }
+            return metrics;
+        };
+    }
+}
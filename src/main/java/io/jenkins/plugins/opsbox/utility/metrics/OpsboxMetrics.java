@@ -0,0 +1,168 @@
+package io.jenkins.plugins.opsbox.utility.metrics;
+
+import io.jenkins.plugins.opsbox.utility.contributor.ListGitBranchesEnvironmentContributor;
+import io.jenkins.plugins.opsbox.utility.contributor.ParametersConfigCache;
+import io.jenkins.plugins.opsbox.utility.contributor.RemoteRefCache;
+import io.jenkins.plugins.opsbox.utility.parameter.BuildNameIndex;
+import io.jenkins.plugins.opsbox.utility.parameter.ChoicesWarmup;
+import io.jenkins.plugins.opsbox.utility.parameter.JobNameIndex;
+import net.sf.json.JSONObject;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 插件内部的指标注册表：计时器、直方图、计数器和仪表，由 {@link OpsboxMetricsAction} 以 JSON 输出，
+ * 安装了 Metrics 插件时同时通过 {@link OpsboxMetricProvider} 暴露。
+ */
+public final class OpsboxMetrics {
+
+    private static final int SLOWEST_JOBS = 20;
+
+    private static final Map<String, Stat> STATS = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static final Map<String, LongAdder> COUNTERS = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static final Map<String, Supplier<Number>> GAUGES = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    // 按上游作业统计的构建历史扫描耗时，用于找出拖慢参数页面的作业
+    private static final ConcurrentMap<String, Stat> SCANS_BY_JOB = new ConcurrentHashMap<>();
+
+    public static final Stat CHOICES_TIME = timer("choices.time");
+    public static final Stat CHOICES_SCAN_TIME = timer("choices.scan.time");
+    public static final Stat CHOICES_SCANNED = histogram("choices.scan.runs");
+    public static final LongAdder CHOICES_INDEX_HIT = counter("choices.index.hit");
+    public static final LongAdder CHOICES_INDEX_MISS = counter("choices.index.miss");
+    public static final LongAdder CHOICES_SCAN_TRUNCATED = counter("choices.scan.truncated");
+    public static final LongAdder CHOICES_INDEX_EVICTED = counter("choices.index.evicted");
+    public static final LongAdder CHOICES_INDEX_EXPIRED = counter("choices.index.expired");
+
+    public static final Stat FIND_TIME = timer("find.time");
+    public static final LongAdder FIND_RELATIVE = counter("find.relative");
+    public static final LongAdder FIND_FULL_NAME = counter("find.fullName");
+    public static final LongAdder FIND_SHORT_NAME_INDEX = counter("find.shortNameIndex");
+    public static final LongAdder FIND_SCAN = counter("find.scan");
+    public static final LongAdder FIND_MISS = counter("find.miss");
+
+    public static final Stat AUTOCOMPLETE_TIME = timer("autocomplete.time");
+
+    public static final Stat ENVIRONMENT_TIME = timer("environment.time");
+    public static final LongAdder ENVIRONMENT_RUN_HIT = counter("environment.run.hit");
+    public static final LongAdder ENVIRONMENT_RUN_MISS = counter("environment.run.miss");
+
+    public static final Stat REFS_FETCH_TIME = timer("refs.fetch.time");
+    public static final LongAdder REFS_HIT = counter("refs.hit");
+    public static final LongAdder REFS_STALE = counter("refs.stale");
+    public static final LongAdder REFS_MISS = counter("refs.miss");
+    public static final LongAdder REFS_FETCH_FAILED = counter("refs.fetch.failed");
+
+    static {
+        gauge("choices.index.jobs", BuildNameIndex::size);
+        gauge("choices.index.weight", BuildNameIndex::getWeight);
+        gauge("choices.warmup.total", ChoicesWarmup::getTotal);
+        gauge("choices.warmup.done", ChoicesWarmup::getDone);
+        gauge("choices.warmup.failed", ChoicesWarmup::getFailed);
+        gauge("jobNameIndex.shortNames", JobNameIndex::size);
+        gauge("jobNameIndex.jobs", JobNameIndex::getJobCount);
+        gauge("environment.configCache.jobs", ParametersConfigCache::size);
+        gauge("environment.runCache.runs", ListGitBranchesEnvironmentContributor::getCachedRunCount);
+        gauge("refs.remotes", RemoteRefCache::size);
+    }
+
+    private OpsboxMetrics() {
+    }
+
+    public static Stat timer(String name) {
+        return STATS.computeIfAbsent(name, k -> new Stat(true));
+    }
+
+    public static Stat histogram(String name) {
+        return STATS.computeIfAbsent(name, k -> new Stat(false));
+    }
+
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, k -> new LongAdder());
+    }
+
+    public static void gauge(String name, Supplier<Number> supplier) {
+        GAUGES.put(name, supplier);
+    }
+
+    public static void recordScan(String jobFullName, long startNanos, int scanned) {
+        long elapsed = System.nanoTime() - startNanos;
+        CHOICES_SCAN_TIME.record(elapsed);
+        CHOICES_SCANNED.record(scanned);
+        if (jobFullName != null) {
+            SCANS_BY_JOB.computeIfAbsent(jobFullName, k -> new Stat(true)).record(elapsed);
+        }
+    }
+
+    public static void removeJob(String jobFullName) {
+        if (jobFullName != null) {
+            SCANS_BY_JOB.remove(jobFullName);
+        }
+    }
+
+    public static Map<String, Stat> getStats() {
+        synchronized (STATS) {
+            return new LinkedHashMap<>(STATS);
+        }
+    }
+
+    public static Map<String, LongAdder> getCounters() {
+        synchronized (COUNTERS) {
+            return new LinkedHashMap<>(COUNTERS);
+        }
+    }
+
+    public static Map<String, Supplier<Number>> getGauges() {
+        synchronized (GAUGES) {
+            return new LinkedHashMap<>(GAUGES);
+        }
+    }
+
+    /**
+     * 扫描总耗时最高的上游作业。
+     */
+    public static List<Map.Entry<String, Stat>> getSlowestJobs() {
+        return SCANS_BY_JOB.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Stat> e) -> e.getValue().getSum()).reversed())
+                .limit(SLOWEST_JOBS)
+                .collect(Collectors.toList());
+    }
+
+    public static JSONObject toJSON() {
+        JSONObject stats = new JSONObject();
+        getStats().forEach((name, stat) -> stats.put(name, stat.toJSON()));
+
+        JSONObject counters = new JSONObject();
+        getCounters().forEach((name, counter) -> counters.put(name, counter.sum()));
+
+        JSONObject gauges = new JSONObject();
+        getGauges().forEach((name, gauge) -> gauges.put(name, gauge.get()));
+
+        JSONObject slowest = new JSONObject();
+        for (Map.Entry<String, Stat> entry : getSlowestJobs()) {
+            slowest.put(entry.getKey(), entry.getValue().toJSON());
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("stats", stats);
+        json.put("counters", counters);
+        json.put("gauges", gauges);
+        json.put("slowestUpstreamJobs", slowest);
+        return json;
+    }
+
+    public static void reset() {
+        getStats().values().forEach(Stat::reset);
+        getCounters().values().forEach(LongAdder::reset);
+        SCANS_BY_JOB.clear();
+    }
+}
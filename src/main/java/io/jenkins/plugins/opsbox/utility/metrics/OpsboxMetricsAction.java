@@ -0,0 +1,44 @@
+package io.jenkins.plugins.opsbox.utility.metrics;
+
+import hudson.Extension;
+import hudson.model.RootAction;
+import jenkins.model.Jenkins;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.verb.GET;
+import org.kohsuke.stapler.verb.POST;
+
+/**
+ * 以 JSON 输出插件指标：{@code GET /opsbox-metrics/}，{@code POST /opsbox-metrics/reset} 清零。
+ */
+@Extension
+public class OpsboxMetricsAction implements RootAction {
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return "opsbox-metrics";
+    }
+
+    @GET
+    public HttpResponse doIndex() {
+        Jenkins.get().checkPermission(Jenkins.SYSTEM_READ);
+        return HttpResponses.okJSON(OpsboxMetrics.toJSON());
+    }
+
+    @POST
+    public HttpResponse doReset() {
+        Jenkins.get().checkPermission(Jenkins.ADMINISTER);
+        OpsboxMetrics.reset();
+        return HttpResponses.ok();
+    }
+}
@@ -0,0 +1,116 @@
+package io.jenkins.plugins.opsbox.utility.metrics;
+
+import net.sf.json.JSONObject;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的计时器/直方图：记录次数、总和、最大值，以及按 2 的幂分桶的分布，用于估算分位数。
+ */
+public final class Stat {
+
+    private static final int BUCKETS = 64;
+
+    private final boolean timer;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    Stat(boolean timer) {
+        this.timer = timer;
+    }
+
+    public boolean isTimer() {
+        return timer;
+    }
+
+    public void record(long value) {
+        long v = Math.max(value, 0);
+        count.increment();
+        sum.add(v);
+        max.accumulate(v);
+        // 桶 i 收集 [2^(i-1), 2^i - 1] 范围内的值，0 单独放在桶 0
+        buckets.incrementAndGet(Long.SIZE - Long.numberOfLeadingZeros(v));
+    }
+
+    /**
+     * 记录从 {@code startNanos} 到现在经过的时间。
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSum() {
+        return sum.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) getSum() / n;
+    }
+
+    /**
+     * 分位数的近似值，取所在桶的上界。
+     */
+    public long getPercentile(double percentile) {
+        long n = getCount();
+        if (n == 0) {
+            return 0;
+        }
+        long threshold = (long) Math.ceil(n * percentile);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= threshold) {
+                return i == 0 ? 0 : Math.min(getMax(), (1L << i) - 1);
+            }
+        }
+        return getMax();
+    }
+
+    public JSONObject toJSON() {
+        JSONObject json = new JSONObject();
+        json.put("count", getCount());
+        if (timer) {
+            json.put("meanMillis", toMillis(getMean()));
+            json.put("p50Millis", toMillis(getPercentile(0.5)));
+            json.put("p95Millis", toMillis(getPercentile(0.95)));
+            json.put("p99Millis", toMillis(getPercentile(0.99)));
+            json.put("maxMillis", toMillis(getMax()));
+            json.put("totalMillis", toMillis(getSum()));
+        } else {
+            json.put("mean", getMean());
+            json.put("p50", getPercentile(0.5));
+            json.put("p95", getPercentile(0.95));
+            json.put("p99", getPercentile(0.99));
+            json.put("max", getMax());
+            json.put("total", getSum());
+        }
+        return json;
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    void reset() {
+        count.reset();
+        sum.reset();
+        max.reset();
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+    }
+}
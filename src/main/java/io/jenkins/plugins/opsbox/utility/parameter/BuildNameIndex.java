@@ -0,0 +1,659 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import hudson.Extension;
+import hudson.XmlFile;
+import hudson.model.*;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.RunListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.util.RunList;
+import io.jenkins.plugins.opsbox.utility.metrics.OpsboxMetrics;
+import jenkins.util.SystemProperties;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.logging.Logger;
+
+/**
+ * 上游作业最近成功构建的索引，按作业全名保存，由构建生命周期事件维护。
+ * 索引的总大小有上限：按估算的内存占用和作业数淘汰最久未访问的条目，长时间未访问的条目定期过期。
+ */
+public final class BuildNameIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildNameIndex.class.getName());
+
+    private static final ConcurrentMap<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    // 正在进行的扫描，按作业全名
+    private static final ConcurrentMap<String, CompletableFuture<Entry>> SCANS = new ConcurrentHashMap<>();
+
+    // 每个上游作业最近一次构建变化时的全局序号，用于生成选项的 ETag
+    private static final ConcurrentMap<String, Long> VERSIONS = new ConcurrentHashMap<>();
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    // 清空索引时更换，重启之前发出的 ETag 不会误命中
+    private static volatile long epoch = System.currentTimeMillis();
+    // 第一次 onLoaded 之后为 true
+    private static final AtomicBoolean STARTED = new AtomicBoolean();
+
+    // 单次扫描最多检查的构建数和耗时，超出后返回已找到的部分结果；非 final，可以在脚本控制台中调整
+    static int SCAN_MAX_RUNS = SystemProperties.getInteger(
+            BuildNameIndex.class.getName() + ".scanMaxRuns", 5000);
+    static long SCAN_MAX_MILLIS = SystemProperties.getLong(
+            BuildNameIndex.class.getName() + ".scanMaxMillis", 2000L);
+
+    // 索引的上限：估算的内存占用（字节）、作业数和空闲过期时间，包括 DisplayNameIndex 的条目；非 final，可以在脚本控制台中调整
+    static long MAX_WEIGHT = SystemProperties.getLong(
+            BuildNameIndex.class.getName() + ".maxWeight", 64L * 1024 * 1024);
+    static int MAX_JOBS = SystemProperties.getInteger(
+            BuildNameIndex.class.getName() + ".maxJobs", 20000);
+    static long EXPIRE_AFTER_ACCESS_MINUTES = SystemProperties.getLong(
+            BuildNameIndex.class.getName() + ".expireAfterAccessMinutes", TimeUnit.DAYS.toMinutes(1));
+
+    // 条目和每条构建记录的固定开销估算，加上显示名称的长度即为条目的权重
+    static final int ENTRY_OVERHEAD = 160;
+    private static final int RECORD_OVERHEAD = 72;
+
+    // 两个索引所有条目的权重之和，本索引的部分只在 ENTRIES 的 compute 中更新
+    private static final AtomicLong WEIGHT = new AtomicLong();
+    private static final Object EVICTION_LOCK = new Object();
+
+    private BuildNameIndex() {
+    }
+
+    /**
+     * 一次成功构建的快照。
+     */
+    public record BuildRecord(int number, String displayName, long timestamp) {
+    }
+
+    /**
+     * 一次查询的结果；扫描预算耗尽时 {@code truncated} 为 {@code true}，更早的成功构建可能被遗漏。
+     */
+    public record Lookup(List<BuildRecord> records, boolean truncated) {
+
+        static final Lookup EMPTY = new Lookup(Collections.emptyList(), false);
+
+        public List<String> getBuildNames() {
+            List<String> names = new ArrayList<>(records.size());
+            for (BuildRecord record : records) {
+                names.add(record.displayName());
+            }
+            return names;
+        }
+    }
+
+    /**
+     * 不可变的索引条目：按构建号倒序排列的成功构建，是作业成功构建历史中连续的最新一段，最多 {@code depth} 条。
+     * 时间戳不早于 {@code floor} 的成功构建都已包含在内；历史已经扫描完时为 {@link Long#MIN_VALUE}。
+     * {@code lastAccess} 在同一作业的各个版本之间共享，构建事件更新条目不算访问。
+     */
+    private record Entry(List<BuildRecord> records, int depth, long floor, AtomicLong lastAccess) {
+
+        Entry(List<BuildRecord> records, int depth, long floor) {
+            this(records, depth, floor, new AtomicLong(System.currentTimeMillis()));
+        }
+
+        long weight() {
+            long weight = ENTRY_OVERHEAD;
+            for (BuildRecord record : records) {
+                weight += RECORD_OVERHEAD + record.displayName().length();
+            }
+            return weight;
+        }
+
+        boolean covers(int count, long since) {
+            return floor <= since || countSince(since) >= count;
+        }
+
+        int countSince(long since) {
+            int n = 0;
+            for (BuildRecord record : records) {
+                if (record.timestamp() < since) {
+                    break;
+                }
+                n++;
+            }
+            return n;
+        }
+
+        Entry upsert(BuildRecord record) {
+            List<BuildRecord> updated = new ArrayList<>(records.size() + 1);
+            boolean inserted = false;
+            for (BuildRecord r : records) {
+                if (r.number() == record.number()) {
+                    continue;
+                }
+                if (!inserted && r.number() < record.number()) {
+                    updated.add(record);
+                    inserted = true;
+                }
+                updated.add(r);
+            }
+            if (!inserted) {
+                // 比窗口内所有构建都旧，只有落在已完整覆盖的时间范围内时才能安全追加
+                if (record.timestamp() < floor) {
+                    return this;
+                }
+                updated.add(record);
+            }
+            if (updated.size() > depth) {
+                List<BuildRecord> kept = List.copyOf(updated.subList(0, depth));
+                return new Entry(kept, depth, Math.max(floor, kept.get(depth - 1).timestamp()), lastAccess);
+            }
+            return new Entry(List.copyOf(updated), depth, floor, lastAccess);
+        }
+
+        Entry remove(int number) {
+            List<BuildRecord> updated = new ArrayList<>(records);
+            if (!updated.removeIf(r -> r.number() == number)) {
+                return this;
+            }
+            // floor 之后的成功构建仍然完整，数量不足时 covers 会触发重新扫描
+            return new Entry(List.copyOf(updated), depth, floor, lastAccess);
+        }
+    }
+
+    /**
+     * 返回作业最近的成功构建，最多 {@code count} 条，按构建号倒序。
+     */
+    @Nonnull
+    public static List<BuildRecord> getRecords(@Nonnull Job<?, ?> job, int count) {
+        return lookup(job, count, Long.MIN_VALUE).records();
+    }
+
+    @Nonnull
+    public static List<String> getBuildNames(@Nonnull Job<?, ?> job, int count) {
+        return lookup(job, count, Long.MIN_VALUE).getBuildNames();
+    }
+
+    @Nonnull
+    public static List<String> getBuildNames(@Nonnull Job<?, ?> job, int count, long since) {
+        return lookup(job, count, since).getBuildNames();
+    }
+
+    /**
+     * 返回作业在 {@code since}（毫秒时间戳）之后的最近成功构建，最多 {@code count} 条，按构建号倒序。
+     * 扫描遇到第一个早于 {@code since} 的构建即停止，长期失败的作业不会遍历整个历史。
+     */
+    @Nonnull
+    public static Lookup lookup(@Nonnull Job<?, ?> job, int count, long since) {
+        if (count <= 0) {
+            return Lookup.EMPTY;
+        }
+
+        Entry entry = ENTRIES.get(job.getFullName());
+        if (entry != null && entry.covers(count, since)) {
+            OpsboxMetrics.CHOICES_INDEX_HIT.increment();
+        } else {
+            OpsboxMetrics.CHOICES_INDEX_MISS.increment();
+            entry = load(job, count, since);
+        }
+
+        entry.lastAccess().set(System.currentTimeMillis());
+        return toLookup(entry, count, since);
+    }
+
+    /**
+     * 同一作业同时只有一次扫描，其余请求等待它的结果；结果不能覆盖本次查询时再自行扫描。
+     */
+    private static Entry load(Job<?, ?> job, int count, long since) {
+        String key = job.getFullName();
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> running = SCANS.putIfAbsent(key, future);
+        if (running != null) {
+            Entry shared = await(running);
+            return shared != null && shared.covers(count, since) ? shared : scanAndInstall(job, count, since);
+        }
+
+        try {
+            Entry entry = scanAndInstall(job, count, since);
+            future.complete(entry);
+            return entry;
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+            throw t;
+        } finally {
+            SCANS.remove(key, future);
+        }
+    }
+
+    private static Entry await(CompletableFuture<Entry> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 在锁外扫描，再把结果写入索引。扫描期间有构建事件或索引被清空时，结果可能已经过时，只返回给本次查询，不写入索引。
+     */
+    private static Entry scanAndInstall(Job<?, ?> job, int count, long since) {
+        String key = job.getFullName();
+        long startEpoch = epoch;
+        Long version = VERSIONS.get(key);
+        Entry current = ENTRIES.get(key);
+        Entry scanned = scan(job, current == null ? count : Math.max(count, current.depth()), since, Result.SUCCESS);
+
+        Entry installed = ENTRIES.compute(key, (k, existing) -> {
+            if (existing != null && existing.covers(count, since)) {
+                return existing;
+            }
+            if (epoch != startEpoch || !Objects.equals(VERSIONS.get(k), version)) {
+                return existing;
+            }
+            return replace(existing, scanned);
+        });
+        evict();
+        return installed != null && installed.covers(count, since) ? installed : scanned;
+    }
+
+    /**
+     * 按结果阈值查询，返回结果不差于 {@code threshold} 的构建。索引只保存成功构建，其他阈值直接扫描，不进入缓存。
+     */
+    @Nonnull
+    public static Lookup lookup(@Nonnull Job<?, ?> job, int count, long since, Result threshold) {
+        if (threshold == null || threshold.isBetterOrEqualTo(Result.SUCCESS)) {
+            return lookup(job, count, since);
+        }
+        if (count <= 0) {
+            return Lookup.EMPTY;
+        }
+        return toLookup(scan(job, count, since, threshold), count, since);
+    }
+
+    /**
+     * 在作业最近的 {@code count} 个成功构建中按显示名称查找，返回最新的一个；没有找到时返回 {@code null}。
+     */
+    static BuildRecord find(@Nonnull Job<?, ?> job, String displayName, int count, long since) {
+        for (BuildRecord record : lookup(job, count, since).records()) {
+            if (record.displayName().equals(displayName)) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    private static Lookup toLookup(Entry entry, int count, long since) {
+        List<BuildRecord> records = entry.records();
+        int n = Math.min(entry.countSince(since), count);
+        // 刚扫描过仍不能覆盖本次查询，只可能是扫描预算耗尽；下次查询会重新扫描
+        return new Lookup(n == records.size() ? records : records.subList(0, n), !entry.covers(count, since));
+    }
+
+    public static void invalidate(String jobFullName) {
+        if (jobFullName != null) {
+            touch(jobFullName);
+            removeEntry(jobFullName);
+            touch(jobFullName);
+        }
+    }
+
+    public static void clear() {
+        for (String key : ENTRIES.keySet()) {
+            removeEntry(key);
+        }
+        VERSIONS.clear();
+        epoch = Math.max(epoch + 1, System.currentTimeMillis());
+    }
+
+    /**
+     * 作业构建状态的版本：构建完成、删除、改名以及作业本身变化时都会改变，构建历史不变时保持不变。
+     */
+    @Nonnull
+    public static String getVersion(@Nonnull Job<?, ?> job) {
+        return epoch + "." + VERSIONS.getOrDefault(job.getFullName(), 0L);
+    }
+
+    /**
+     * 更新索引条目前后各调用一次：之前的调用让正在进行的扫描放弃结果，
+     * 之后的调用避免并发的请求把旧的选项和新的版本一起返回。
+     */
+    private static void touch(String jobFullName) {
+        VERSIONS.put(jobFullName, SEQUENCE.incrementAndGet());
+    }
+
+    private static void update(String key, BiFunction<String, Entry, Entry> function) {
+        touch(key);
+        ENTRIES.computeIfPresent(key, function);
+        touch(key);
+    }
+
+    public static int size() {
+        return ENTRIES.size();
+    }
+
+    /**
+     * 本索引和 {@link DisplayNameIndex} 所有条目的估算内存占用（字节）。
+     */
+    public static long getWeight() {
+        return WEIGHT.get();
+    }
+
+    static void addWeight(long delta) {
+        WEIGHT.addAndGet(delta);
+    }
+
+    /**
+     * 在 {@link #ENTRIES} 的 compute 函数中替换条目并更新总权重。
+     */
+    private static Entry replace(Entry current, Entry updated) {
+        WEIGHT.addAndGet((updated == null ? 0 : updated.weight()) - (current == null ? 0 : current.weight()));
+        return updated;
+    }
+
+    private static boolean removeEntry(String key) {
+        boolean[] removed = new boolean[1];
+        ENTRIES.computeIfPresent(key, (k, entry) -> {
+            removed[0] = true;
+            return replace(entry, null);
+        });
+        return removed[0];
+    }
+
+    private record Candidate(String key, long lastAccess, boolean displayName) {
+
+        boolean remove() {
+            return displayName ? DisplayNameIndex.remove(key) : removeEntry(key);
+        }
+    }
+
+    /**
+     * 超出上限时按最近访问时间从旧到新淘汰，一次降到上限的 90%，避免每次插入都排序。
+     */
+    static void evict() {
+        if (!isOverLimit(MAX_WEIGHT, MAX_JOBS)) {
+            return;
+        }
+        synchronized (EVICTION_LOCK) {
+            if (!isOverLimit(MAX_WEIGHT, MAX_JOBS)) {
+                return;
+            }
+            // 先取出访问时间，排序期间的并发访问不会影响比较结果
+            List<Candidate> candidates = new ArrayList<>(ENTRIES.size() + DisplayNameIndex.size());
+            ENTRIES.forEach((key, entry) -> candidates.add(new Candidate(key, entry.lastAccess().get(), false)));
+            DisplayNameIndex.forEachAccess((key, lastAccess) -> candidates.add(new Candidate(key, lastAccess, true)));
+            candidates.sort(Comparator.comparingLong(Candidate::lastAccess));
+
+            long targetWeight = MAX_WEIGHT - MAX_WEIGHT / 10;
+            int targetJobs = MAX_JOBS - MAX_JOBS / 10;
+            for (Candidate candidate : candidates) {
+                if (!isOverLimit(targetWeight, targetJobs)) {
+                    break;
+                }
+                if (candidate.remove()) {
+                    OpsboxMetrics.CHOICES_INDEX_EVICTED.increment();
+                }
+            }
+        }
+    }
+
+    private static boolean isOverLimit(long maxWeight, int maxJobs) {
+        return WEIGHT.get() > maxWeight || ENTRIES.size() + DisplayNameIndex.size() > maxJobs;
+    }
+
+    /**
+     * 移除超过 {@link #EXPIRE_AFTER_ACCESS_MINUTES} 未被访问的条目。
+     */
+    static void expireIdle() {
+        long deadline = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(EXPIRE_AFTER_ACCESS_MINUTES);
+        ENTRIES.forEach((key, entry) -> {
+            if (entry.lastAccess().get() < deadline && removeEntry(key)) {
+                OpsboxMetrics.CHOICES_INDEX_EXPIRED.increment();
+            }
+        });
+        DisplayNameIndex.forEachAccess((key, lastAccess) -> {
+            if (lastAccess < deadline && DisplayNameIndex.remove(key)) {
+                OpsboxMetrics.CHOICES_INDEX_EXPIRED.increment();
+            }
+        });
+    }
+
+    private static Entry scan(Job<?, ?> job, int count, long since, Result threshold) {
+        long start = System.nanoTime();
+        Budget budget = new Budget(job.getFullName(), start);
+        try {
+            List<BuildSummaryFile.Summary> summaries = BuildSummaryFile.read(job);
+            if (summaries != null) {
+                return scan(summaries, count, since, threshold, budget);
+            }
+
+            List<BuildRecord> records = new ArrayList<>(count);
+
+            for (Run<?, ?> run : job.getBuilds().newBuilds()) {
+                if (records.size() >= count) {
+                    return new Entry(List.copyOf(records), count, records.get(count - 1).timestamp());
+                }
+                if (run.getTimeInMillis() < since) {
+                    // newBuilds() 按时间从新到旧，之后的构建都超出时间窗口
+                    return new Entry(List.copyOf(records), count, since);
+                }
+                if (budget.isExhausted()) {
+                    return budget.truncate(records, count);
+                }
+
+                budget.inspect(run.getTimeInMillis());
+                if (matches(run, threshold)) {
+                    records.add(toRecord(run));
+                }
+            }
+
+            return exhausted(records, count);
+        } finally {
+            OpsboxMetrics.recordScan(job.getFullName(), start, budget.scanned);
+        }
+    }
+
+    /**
+     * 基于构建摘要扫描，不加载 {@link Run}；与 {@link RunList#newBuilds()} 相同，至少保留最近 10 个构建，其余只看 7 天内的。
+     */
+    private static Entry scan(List<BuildSummaryFile.Summary> summaries, int count, long since, Result threshold,
+                              Budget budget) {
+        List<BuildRecord> records = new ArrayList<>(count);
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(7);
+
+        for (int i = 0; i < summaries.size(); i++) {
+            BuildSummaryFile.Summary summary = summaries.get(i);
+            if (records.size() >= count) {
+                return new Entry(List.copyOf(records), count, records.get(count - 1).timestamp());
+            }
+            if (i >= 10 && summary.timestamp() < cutoff) {
+                break;
+            }
+            if (summary.timestamp() < since) {
+                return new Entry(List.copyOf(records), count, since);
+            }
+            if (budget.isExhausted()) {
+                return budget.truncate(records, count);
+            }
+
+            budget.inspect(summary.timestamp());
+
+            if (summary.result().isBetterOrEqualTo(threshold)) {
+                records.add(new BuildRecord(summary.number(), summary.displayName(), summary.timestamp()));
+            }
+        }
+
+        return exhausted(records, count);
+    }
+
+    /**
+     * 单次扫描的预算：检查的构建数和耗时。
+     */
+    private static final class Budget {
+        private final String jobFullName;
+        private final long start;
+        private int scanned;
+        // 已检查的最早一个构建的时间戳，之后的成功构建都已找到
+        private long oldest = Long.MAX_VALUE;
+
+        Budget(String jobFullName, long start) {
+            this.jobFullName = jobFullName;
+            this.start = start;
+        }
+
+        boolean isExhausted() {
+            return scanned >= SCAN_MAX_RUNS || System.nanoTime() - start > TimeUnit.MILLISECONDS.toNanos(SCAN_MAX_MILLIS);
+        }
+
+        void inspect(long timestamp) {
+            scanned++;
+            oldest = timestamp;
+        }
+
+        Entry truncate(List<BuildRecord> records, int count) {
+            OpsboxMetrics.CHOICES_SCAN_TRUNCATED.increment();
+            LOGGER.fine(() -> "Scan budget exhausted for " + jobFullName + " after " + scanned + " builds");
+            return new Entry(List.copyOf(records), count, oldest);
+        }
+    }
+
+    private static Entry exhausted(List<BuildRecord> records, int count) {
+        // 恰好取满时无法确定更早的构建，按取满处理
+        long floor = records.size() < count ? Long.MIN_VALUE : records.get(count - 1).timestamp();
+        return new Entry(List.copyOf(records), count, floor);
+    }
+
+    static boolean isSuccessful(Run<?, ?> run) {
+        return matches(run, Result.SUCCESS);
+    }
+
+    static boolean matches(Run<?, ?> run, Result threshold) {
+        if (run.isBuilding()) {
+            return false;
+        }
+        Result result = run.getResult();
+        return result != null && result.isBetterOrEqualTo(threshold);
+    }
+
+    static BuildRecord toRecord(Run<?, ?> run) {
+        return new BuildRecord(run.getNumber(), run.getDisplayName(), run.getTimeInMillis());
+    }
+
+    static void onRunChanged(Run<?, ?> run) {
+        if (run.isBuilding()) {
+            return;
+        }
+        String key = run.getParent().getFullName();
+        if (isSuccessful(run)) {
+            BuildRecord record = toRecord(run);
+            update(key, (k, entry) -> replace(entry, entry.upsert(record)));
+        } else {
+            onRunDeleted(run);
+        }
+    }
+
+    static void onRunDeleted(Run<?, ?> run) {
+        int number = run.getNumber();
+        String key = run.getParent().getFullName();
+        update(key, (k, entry) -> replace(entry, entry.remove(number)));
+    }
+
+    @Extension
+    public static final class RunListenerImpl extends RunListener<Run<?, ?>> {
+
+        @Override
+        public void onCompleted(Run<?, ?> run, @Nonnull TaskListener listener) {
+            onRunChanged(run);
+            DisplayNameIndex.onRunChanged(run);
+            BuildSummaryFile.onCompleted(run);
+        }
+
+        @Override
+        public void onFinalized(Run<?, ?> run) {
+            BuildSummaryFile.onFinalized(run);
+        }
+
+        @Override
+        public void onDeleted(Run<?, ?> run) {
+            onRunDeleted(run);
+            DisplayNameIndex.onRunDeleted(run);
+            BuildSummaryFile.appendDeleted(run);
+        }
+    }
+
+    /**
+     * 构建的显示名称通过 {@link Run#setDisplayName(String)} 修改后只会触发保存，这里据此更新索引；
+     * 构建摘要文件只在显示名称或结果变化时追加。
+     */
+    @Extension
+    public static final class SaveableListenerImpl extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Run<?, ?> run) {
+                onRunChanged(run);
+                DisplayNameIndex.onRunChanged(run);
+                BuildSummaryFile.onSaved(run);
+            }
+        }
+    }
+
+    @Extension
+    public static final class ExpiryWork extends PeriodicWork {
+
+        @Override
+        public long getRecurrencePeriod() {
+            return TimeUnit.MINUTES.toMillis(5);
+        }
+
+        @Override
+        protected void doRun() {
+            expireIdle();
+        }
+    }
+
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onLoaded() {
+            // 启动时索引中只有预热的结果，只在重新加载配置时清空
+            if (!STARTED.compareAndSet(false, true)) {
+                clear();
+                DisplayNameIndex.clear();
+            }
+        }
+
+        @Override
+        public void onCreated(Item item) {
+            if (item instanceof Job) {
+                invalidate(item.getFullName());
+                DisplayNameIndex.invalidate(item.getFullName());
+            }
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            if (item instanceof Job) {
+                invalidate(item.getFullName());
+                DisplayNameIndex.invalidate(item.getFullName());
+                OpsboxMetrics.removeJob(item.getFullName());
+            }
+        }
+
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            invalidate(oldFullName);
+            invalidate(newFullName);
+            DisplayNameIndex.invalidate(oldFullName);
+            DisplayNameIndex.invalidate(newFullName);
+            OpsboxMetrics.removeJob(oldFullName);
+        }
+    }
+}
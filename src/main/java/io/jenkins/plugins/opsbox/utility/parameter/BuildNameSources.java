@@ -0,0 +1,232 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import jenkins.util.ContextResettingExecutorService;
+import jenkins.util.SystemProperties;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * jobBuildNameParam 的上游作业来源：单个作业名，逗号或换行分隔的作业列表，以及通配符模式。
+ * 多个来源的构建历史并发获取，再按构建时间做 k 路归并，取最新的若干条。
+ */
+public final class BuildNameSources {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildNameSources.class.getName());
+
+    // 一个参数最多合并的上游作业数，避免通配符匹配到大量作业
+    static final int MAX_SOURCES = SystemProperties.getInteger(BuildNameSources.class.getName() + ".maxSources", 20);
+
+    private static final int THREADS = SystemProperties.getInteger(BuildNameSources.class.getName() + ".threads", 4);
+
+    private static final ExecutorService EXECUTOR;
+
+    static {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamingThreadFactory(new DaemonThreadFactory(), "BuildNameSources"));
+        pool.allowCoreThreadTimeOut(true);
+        EXECUTOR = new ContextResettingExecutorService(pool);
+    }
+
+    private BuildNameSources() {
+    }
+
+    /**
+     * 包含分隔符或通配符时按多个来源处理；含逗号但本身就是一个作业全名时仍按单个作业处理。
+     */
+    static boolean isMultiSource(String jobName) {
+        if (jobName == null) {
+            return false;
+        }
+        if (JobNameIndex.isGlob(jobName)) {
+            return true;
+        }
+        if (jobName.indexOf(',') < 0 && jobName.indexOf('\n') < 0) {
+            return false;
+        }
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        return jenkins == null || jenkins.getItemByFullName(jobName.trim(), Job.class) == null;
+    }
+
+    static List<String> split(String jobName) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : jobName.split("[,\\n]")) {
+            if (!token.isBlank()) {
+                tokens.add(token.trim());
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 解析出当前用户可以读取的上游作业，按配置顺序去重，最多 {@link #MAX_SOURCES} 个。
+     */
+    public static List<Job<?, ?>> resolve(String jobName, ItemGroup<?> context) {
+        if (!isMultiSource(jobName)) {
+            Job<?, ?> job = JobBuildNameParameterDefinition.find(jobName, Job.class, context);
+            return job == null ? Collections.emptyList() : List.of(job);
+        }
+
+        Map<String, Job<?, ?>> jobs = new LinkedHashMap<>();
+        for (String token : split(jobName)) {
+            for (Job<?, ?> job : resolveToken(token, context)) {
+                if (jobs.size() >= MAX_SOURCES) {
+                    LOGGER.fine(() -> "Too many jobs match " + jobName + ", using the first " + MAX_SOURCES);
+                    return new ArrayList<>(jobs.values());
+                }
+                jobs.putIfAbsent(job.getFullName(), job);
+            }
+        }
+        return new ArrayList<>(jobs.values());
+    }
+
+    /**
+     * 通配符模式先相对上下文文件夹匹配，没有匹配时再按全名匹配。
+     */
+    static List<Job<?, ?>> resolveToken(String token, ItemGroup<?> context) {
+        if (!JobNameIndex.isGlob(token)) {
+            Job<?, ?> job = JobBuildNameParameterDefinition.find(token, Job.class, context);
+            return job == null ? Collections.emptyList() : List.of(job);
+        }
+
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return Collections.emptyList();
+        }
+
+        if (context instanceof Item folder && !token.startsWith("/")) {
+            List<Job<?, ?>> jobs = glob(jenkins, folder.getFullName() + "/" + token);
+            if (!jobs.isEmpty()) {
+                return jobs;
+            }
+        }
+        return glob(jenkins, token.startsWith("/") ? token.substring(1) : token);
+    }
+
+    private static List<Job<?, ?>> glob(Jenkins jenkins, String token) {
+        List<Job<?, ?>> jobs = new ArrayList<>();
+        if (JobNameIndex.isLoaded()) {
+            for (String fullName : JobNameIndex.glob(token, MAX_SOURCES)) {
+                Job<?, ?> job = JobNameIndex.getVisibleJob(jenkins, fullName);
+                if (job != null) {
+                    jobs.add(job);
+                }
+            }
+            return jobs;
+        }
+
+        // 索引尚未加载时遍历所有作业
+        Pattern pattern = JobNameIndex.compileGlob(token);
+        for (Job<?, ?> job : jenkins.allItems(Job.class)) {
+            if (jobs.size() >= MAX_SOURCES) {
+                break;
+            }
+            if (pattern.matcher(job.getFullName()).matches()) {
+                jobs.add(job);
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * 返回所有来源中最新的成功构建，最多 {@code count} 条；多个来源的同名构建只保留最新的一个。
+     */
+    static BuildNameIndex.Lookup lookup(List<Job<?, ?>> jobs, int count, long since) {
+        return lookup(jobs, count, since, Result.SUCCESS);
+    }
+
+    /**
+     * 同上，只返回结果不差于 {@code threshold} 的构建。
+     */
+    public static BuildNameIndex.Lookup lookup(List<Job<?, ?>> jobs, int count, long since, Result threshold) {
+        if (jobs.isEmpty()) {
+            return BuildNameIndex.Lookup.EMPTY;
+        }
+        if (jobs.size() == 1) {
+            return BuildNameIndex.lookup(jobs.get(0), count, since, threshold);
+        }
+
+        // 第一个来源在当前线程中查询，其余的并发查询
+        List<Future<BuildNameIndex.Lookup>> futures = new ArrayList<>(jobs.size() - 1);
+        for (Job<?, ?> job : jobs.subList(1, jobs.size())) {
+            futures.add(EXECUTOR.submit(() -> BuildNameIndex.lookup(job, count, since, threshold)));
+        }
+
+        List<BuildNameIndex.Lookup> lookups = new ArrayList<>(jobs.size());
+        lookups.add(BuildNameIndex.lookup(jobs.get(0), count, since, threshold));
+        boolean truncated = false;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                lookups.add(futures.get(i).get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(future -> future.cancel(true));
+                truncated = true;
+                break;
+            } catch (ExecutionException e) {
+                LOGGER.log(Level.WARNING, "Failed to read build names of " + jobs.get(i + 1).getFullName(), e.getCause());
+                truncated = true;
+            }
+        }
+
+        return merge(lookups, count, truncated);
+    }
+
+    private record Cursor(List<BuildNameIndex.BuildRecord> records, int index) {
+
+        BuildNameIndex.BuildRecord current() {
+            return records.get(index);
+        }
+    }
+
+    /**
+     * 每个来源的结果已按时间从新到旧排列，用优先队列做 k 路归并。
+     */
+    static BuildNameIndex.Lookup merge(List<BuildNameIndex.Lookup> lookups, int count, boolean truncated) {
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(Math.max(lookups.size(), 1),
+                Comparator.comparingLong((Cursor c) -> c.current().timestamp()).reversed());
+        for (BuildNameIndex.Lookup lookup : lookups) {
+            truncated |= lookup.truncated();
+            if (!lookup.records().isEmpty()) {
+                queue.add(new Cursor(lookup.records(), 0));
+            }
+        }
+
+        List<BuildNameIndex.BuildRecord> merged = new ArrayList<>(count);
+        Set<String> names = new HashSet<>();
+        while (merged.size() < count && !queue.isEmpty()) {
+            Cursor cursor = queue.poll();
+            BuildNameIndex.BuildRecord record = cursor.current();
+            if (names.add(record.displayName())) {
+                merged.add(record);
+            }
+            if (cursor.index() + 1 < cursor.records().size()) {
+                queue.add(new Cursor(cursor.records(), cursor.index() + 1));
+            }
+        }
+        return new BuildNameIndex.Lookup(List.copyOf(merged), truncated);
+    }
+}
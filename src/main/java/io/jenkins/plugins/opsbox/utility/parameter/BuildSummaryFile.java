@@ -0,0 +1,503 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import hudson.Functions;
+import hudson.model.Job;
+import hudson.model.Result;
+import hudson.model.Run;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.util.ContextResettingExecutorService;
+import jenkins.util.SystemProperties;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * 保存在作业目录下的构建摘要文件，只追加写入，按内存映射读取（Windows 除外）。
+ * 每条记录包含构建号、结果、时间戳和显示名称，读取时后写入的记录覆盖先写入的记录。
+ * 文件缺失时在后台从构建目录中的 build.xml 重建，完成之前调用方按预算遍历 {@link Run}；
+ * 之后冷启动查询不需要加载 {@link Run} 对象。解析并排序后的结果按文件缓存，追加时就地更新。
+ */
+final class BuildSummaryFile {
+
+    private static final Logger LOGGER = Logger.getLogger(BuildSummaryFile.class.getName());
+
+    static final String FILE_NAME = "opsbox-build-summary.dat";
+
+    private static final int MAGIC = 0x4f505342;
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES;
+
+    private static final byte DELETED = -1;
+    private static final Result[] RESULTS = {
+            Result.SUCCESS, Result.UNSTABLE, Result.FAILURE, Result.NOT_BUILT, Result.ABORTED
+    };
+
+    private static final Comparator<Summary> BY_NUMBER_DESC = Comparator.comparingInt(Summary::number).reversed();
+
+    // 被覆盖的记录过多时重写文件
+    private static final int COMPACT_SLACK = 64;
+
+    private static final ConcurrentMap<String, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private static final int THREADS = SystemProperties.getInteger(BuildSummaryFile.class.getName() + ".threads", 1);
+
+    private static final ExecutorService EXECUTOR;
+
+    static {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamingThreadFactory(new DaemonThreadFactory(), "BuildSummaryFile"));
+        pool.allowCoreThreadTimeOut(true);
+        EXECUTOR = new ContextResettingExecutorService(pool);
+    }
+
+    // 正在后台重建的文件，按绝对路径；重建期间的追加先记在这里，写出文件后再补上
+    private static final ConcurrentMap<String, Rebuild> REBUILDS = new ConcurrentHashMap<>();
+
+    // 解析并排序后的摘要，按绝对路径；文件长度不一致时说明被其他方式修改过，重新解析
+    private static final Cache<String, Parsed> PARSED = CacheBuilder.newBuilder()
+            .maximumWeight(SystemProperties.getLong(BuildSummaryFile.class.getName() + ".maxCachedBuilds", 200_000L))
+            .weigher((String key, Parsed parsed) -> parsed.summaries().size() + 1)
+            .expireAfterAccess(1, TimeUnit.DAYS)
+            .build();
+
+    // 已经结束但还没有 onFinalized 的构建，结束时的保存不追加记录
+    private static final Set<String> FINALIZING = ConcurrentHashMap.newKeySet();
+
+    // 最近追加的记录，构建再次保存但显示名称和结果都没有变化时不再追加
+    private static final int RECENT_SIZE = 1024;
+    private static final Map<String, Summary> RECENT = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Summary> eldest) {
+                    return size() > RECENT_SIZE;
+                }
+            });
+
+    private BuildSummaryFile() {
+    }
+
+    record Summary(int number, Result result, long timestamp, String displayName) {
+    }
+
+    private record Parsed(List<Summary> summaries, long length) {
+    }
+
+    private record Rebuild(CompletableFuture<Void> done, List<Summary> pending) {
+    }
+
+    static File fileOf(Job<?, ?> job) {
+        return new File(job.getRootDir(), FILE_NAME);
+    }
+
+    private static Object lockFor(File file) {
+        return LOCKS.computeIfAbsent(file.getAbsolutePath(), k -> new Object());
+    }
+
+    /**
+     * 返回所有已完成构建的摘要，按构建号倒序，不可修改。文件不存在或损坏时在后台重建并返回 {@code null}；
+     * 重建完成之前以及无法读取时调用方应回退到遍历 {@link Run}。
+     */
+    static List<Summary> read(Job<?, ?> job) {
+        File file = fileOf(job);
+        String path = file.getAbsolutePath();
+        synchronized (lockFor(file)) {
+            try {
+                if (REBUILDS.containsKey(path)) {
+                    return null;
+                }
+                if (!file.isFile()) {
+                    scheduleRebuild(job, file);
+                    return null;
+                }
+
+                Parsed parsed = PARSED.getIfPresent(path);
+                if (parsed != null && parsed.length() == file.length()) {
+                    return parsed.summaries();
+                }
+
+                Map<Integer, Summary> live = new HashMap<>();
+                int total = readRecords(file, live);
+                if (total < 0) {
+                    // 文件头损坏，重建
+                    scheduleRebuild(job, file);
+                    return null;
+                }
+
+                List<Summary> summaries = new ArrayList<>(live.values());
+                summaries.sort(BY_NUMBER_DESC);
+
+                if (total > live.size() * 2 + COMPACT_SLACK) {
+                    try {
+                        write(file, summaries);
+                    } catch (IOException e) {
+                        LOGGER.log(Level.FINE, "Failed to compact " + file, e);
+                    }
+                }
+                summaries = Collections.unmodifiableList(summaries);
+                PARSED.put(path, new Parsed(summaries, file.length()));
+                return summaries;
+            } catch (IOException | RuntimeException e) {
+                LOGGER.log(Level.WARNING, "Failed to read build summary of " + job.getFullName(), e);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 等待进行中的重建完成，供测试使用。
+     */
+    static void awaitRebuild(Job<?, ?> job) throws InterruptedException, ExecutionException {
+        Rebuild rebuild = REBUILDS.get(fileOf(job).getAbsolutePath());
+        if (rebuild != null) {
+            rebuild.done().get();
+        }
+    }
+
+    static void onCompleted(Run<?, ?> run) {
+        FINALIZING.add(run.getExternalizableId());
+    }
+
+    /**
+     * 构建结束后记录一次。
+     */
+    static void onFinalized(Run<?, ?> run) {
+        FINALIZING.remove(run.getExternalizableId());
+        append(run);
+    }
+
+    /**
+     * 已完成的构建再次保存时（修改描述、保留构建、添加动作等），只有显示名称或结果变化时才追加记录。
+     */
+    static void onSaved(Run<?, ?> run) {
+        if (run.isBuilding() || FINALIZING.contains(run.getExternalizableId())) {
+            return;
+        }
+        Result result = run.getResult();
+        Summary last = RECENT.get(run.getExternalizableId());
+        if (last != null && result != null && last.result().ordinal == result.ordinal
+                && last.displayName().equals(run.getDisplayName())) {
+            return;
+        }
+        append(run);
+    }
+
+    /**
+     * 记录一次已完成构建的当前状态，文件不存在时跳过，下次读取会从构建目录重建。
+     */
+    static void append(Run<?, ?> run) {
+        Result result = run.getResult();
+        if (result == null) {
+            return;
+        }
+        String displayName = run.getDisplayName();
+        append(run, (byte) result.ordinal, displayName);
+        RECENT.put(run.getExternalizableId(), new Summary(run.getNumber(), result, run.getTimeInMillis(), displayName));
+    }
+
+    static void appendDeleted(Run<?, ?> run) {
+        FINALIZING.remove(run.getExternalizableId());
+        RECENT.remove(run.getExternalizableId());
+        append(run, DELETED, "");
+    }
+
+    private static void append(Run<?, ?> run, byte result, String displayName) {
+        File file = fileOf(run.getParent());
+        String path = file.getAbsolutePath();
+        // 删除记录用空结果表示
+        Summary summary = new Summary(run.getNumber(), result < 0 ? null : RESULTS[result], run.getTimeInMillis(), displayName);
+        synchronized (lockFor(file)) {
+            Rebuild rebuild = REBUILDS.get(path);
+            if (rebuild != null) {
+                rebuild.pending().add(summary);
+                return;
+            }
+            if (!file.isFile()) {
+                return;
+            }
+
+            Parsed parsed = PARSED.getIfPresent(path);
+            long length = file.length();
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)))) {
+                writeRecord(out, summary);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, "Failed to append build summary of " + run.getExternalizableId(), e);
+                PARSED.invalidate(path);
+                return;
+            }
+
+            if (parsed != null && parsed.length() == length) {
+                PARSED.put(path, new Parsed(merge(parsed.summaries(), summary), file.length()));
+            } else {
+                PARSED.invalidate(path);
+            }
+        }
+    }
+
+    /**
+     * 返回合并了一条新记录的摘要列表，仍按构建号倒序。
+     */
+    private static List<Summary> merge(List<Summary> summaries, Summary summary) {
+        List<Summary> merged = new ArrayList<>(summaries);
+        int index = Collections.binarySearch(merged, summary, BY_NUMBER_DESC);
+        if (index >= 0) {
+            if (summary.result() == null) {
+                merged.remove(index);
+            } else {
+                merged.set(index, summary);
+            }
+        } else if (summary.result() != null) {
+            merged.add(-index - 1, summary);
+        }
+        return Collections.unmodifiableList(merged);
+    }
+
+    private static int readRecords(File file, Map<Integer, Summary> live) throws IOException {
+        live.clear();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                return -1;
+            }
+
+            ByteBuffer buffer = map(channel, size);
+            if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                return -1;
+            }
+
+            int total = 0;
+            try {
+                while (buffer.hasRemaining()) {
+                    int number = buffer.getInt();
+                    byte result = buffer.get();
+                    long timestamp = buffer.getLong();
+                    byte[] name = new byte[buffer.getInt()];
+                    buffer.get(name);
+                    total++;
+
+                    if (result < 0 || result >= RESULTS.length) {
+                        live.remove(number);
+                    } else {
+                        live.put(number, new Summary(number, RESULTS[result], timestamp,
+                                new String(name, StandardCharsets.UTF_8)));
+                    }
+                }
+            } catch (BufferUnderflowException | NegativeArraySizeException e) {
+                // 进程中断时可能留下不完整的末尾记录，忽略即可
+                LOGGER.fine("Ignoring truncated record in " + file);
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Windows 上映射未被回收前文件无法替换或删除，会影响压缩和删除作业，因此在 Windows 上读入堆内存。
+     */
+    private static ByteBuffer map(FileChannel channel, long size) throws IOException {
+        if (!Functions.isWindows()) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * 提交一次后台重建，调用时持有文件锁。
+     */
+    private static void scheduleRebuild(Job<?, ?> job, File file) {
+        String path = file.getAbsolutePath();
+        if (REBUILDS.containsKey(path)) {
+            return;
+        }
+        Rebuild rebuild = new Rebuild(new CompletableFuture<>(), new ArrayList<>());
+        REBUILDS.put(path, rebuild);
+        PARSED.invalidate(path);
+        try {
+            EXECUTOR.execute(() -> rebuild(job, file, rebuild));
+        } catch (RejectedExecutionException e) {
+            REBUILDS.remove(path, rebuild);
+            rebuild.done().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 在锁外解析构建目录，写出文件时补上重建期间的追加。
+     */
+    private static void rebuild(Job<?, ?> job, File file, Rebuild rebuild) {
+        String path = file.getAbsolutePath();
+        try {
+            File[] dirs = job.getBuildDir().listFiles(dir -> dir.isDirectory() && isBuildNumber(dir.getName()));
+            List<Summary> summaries = dirs == null ? List.of() : Arrays.stream(dirs)
+                    .map(BuildSummaryFile::parseBuildXml)
+                    .filter(Objects::nonNull)
+                    .sorted(BY_NUMBER_DESC)
+                    .collect(Collectors.toList());
+
+            synchronized (lockFor(file)) {
+                try {
+                    if (file.getParentFile().isDirectory()) {
+                        write(file, summaries);
+                        if (!rebuild.pending().isEmpty()) {
+                            try (DataOutputStream out = new DataOutputStream(
+                                    new BufferedOutputStream(new FileOutputStream(file, true)))) {
+                                for (Summary summary : rebuild.pending()) {
+                                    writeRecord(out, summary);
+                                }
+                            }
+                        }
+                        LOGGER.fine(() -> "Rebuilt build summary of " + job.getFullName() + " with " + summaries.size() + " builds");
+                    }
+                } finally {
+                    REBUILDS.remove(path, rebuild);
+                }
+            }
+            rebuild.done().complete(null);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to rebuild build summary of " + job.getFullName(), e);
+            REBUILDS.remove(path, rebuild);
+            rebuild.done().completeExceptionally(e);
+        }
+    }
+
+    private static void write(File file, List<Summary> summaries) throws IOException {
+        File tmp = new File(file.getParentFile(), FILE_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            // 按构建号升序写入，与追加顺序一致
+            for (int i = summaries.size() - 1; i >= 0; i--) {
+                Summary summary = summaries.get(i);
+                writeRecord(out, summary);
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeRecord(DataOutputStream out, Summary summary) throws IOException {
+        byte[] name = summary.displayName().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(summary.number());
+        out.writeByte(summary.result() == null ? DELETED : (byte) summary.result().ordinal);
+        out.writeLong(summary.timestamp());
+        out.writeInt(name.length);
+        out.write(name);
+    }
+
+    private static boolean isBuildNumber(String name) {
+        if (name.isEmpty() || name.length() > 9) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (!Character.isDigit(name.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 只读取 build.xml 的顶层 result、timestamp 和 displayName 元素，没有结果的构建（仍在运行或异常中断）会被忽略。
+     */
+    private static Summary parseBuildXml(File dir) {
+        File xml = new File(dir, "build.xml");
+        if (!xml.isFile()) {
+            return null;
+        }
+
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        int number = Integer.parseInt(dir.getName());
+        String result = null;
+        String timestamp = null;
+        String displayName = null;
+
+        try (InputStream in = Files.newInputStream(xml.toPath())) {
+            XMLStreamReader reader = factory.createXMLStreamReader(in);
+            try {
+                int depth = 0;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        depth++;
+                        if (depth == 2) {
+                            switch (reader.getLocalName()) {
+                                case "result" -> result = reader.getElementText().trim();
+                                case "timestamp" -> timestamp = reader.getElementText().trim();
+                                case "displayName" -> displayName = reader.getElementText();
+                                default -> {
+                                    continue;
+                                }
+                            }
+                            // getElementText 已经消费了结束标签
+                            depth--;
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        depth--;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException | RuntimeException e) {
+            LOGGER.log(Level.FINE, "Failed to parse " + xml, e);
+            return null;
+        }
+
+        if (result == null || timestamp == null) {
+            return null;
+        }
+        try {
+            return new Summary(number, Result.fromString(result), Long.parseLong(timestamp),
+                    displayName == null ? "#" + number : displayName);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
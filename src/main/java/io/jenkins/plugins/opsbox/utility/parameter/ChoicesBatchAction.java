@@ -0,0 +1,242 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import hudson.Extension;
+import hudson.model.*;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import jenkins.util.ContextResettingExecutorService;
+import jenkins.util.SystemProperties;
+import net.sf.json.JSONArray;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.*;
+import org.kohsuke.stapler.verb.GET;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 批量获取选项：{@code GET /opsbox-choices/?job=a&job=b&upstream=c&limit=5}。
+ * {@code job} 为使用了 jobBuildNameParam 的作业，返回其每个参数的选项；{@code upstream} 为上游作业，直接返回其构建名称。
+ * 所有查询并发执行，指向同一上游作业且配置相同的参数只查询一次。
+ * 与分页选项接口相同支持 {@code If-None-Match} 条件请求，见 {@link ChoicesETag}。
+ */
+@Extension
+public class ChoicesBatchAction implements RootAction {
+
+    private static final Logger LOGGER = Logger.getLogger(ChoicesBatchAction.class.getName());
+
+    private static final int DEFAULT_LIMIT = 5;
+    private static final int MAX_LIMIT = 100;
+
+    // 单次请求最多查询的作业数
+    private static final int MAX_JOBS = SystemProperties.getInteger(ChoicesBatchAction.class.getName() + ".maxJobs", 200);
+
+    private static final int THREADS = SystemProperties.getInteger(ChoicesBatchAction.class.getName() + ".threads", 4);
+
+    // 与 BuildNameSources 使用不同的线程池，多来源参数在这里的任务中再提交子任务不会互相等待
+    private static final ExecutorService EXECUTOR;
+
+    static {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamingThreadFactory(new DaemonThreadFactory(), "ChoicesBatchAction"));
+        pool.allowCoreThreadTimeOut(true);
+        EXECUTOR = new ContextResettingExecutorService(pool);
+    }
+
+    @Override
+    public String getIconFileName() {
+        return null;
+    }
+
+    @Override
+    public String getDisplayName() {
+        return null;
+    }
+
+    @Override
+    public String getUrlName() {
+        return "opsbox-choices";
+    }
+
+    @GET
+    public HttpResponse doIndex(StaplerRequest2 req, @QueryParameter int limit, @QueryParameter int maxAgeDays) {
+        Jenkins jenkins = Jenkins.get();
+        jenkins.checkPermission(Jenkins.READ);
+
+        Set<String> jobNames = parameterValues(req, "job");
+        Set<String> upstreamNames = parameterValues(req, "upstream");
+        if (jobNames.size() + upstreamNames.size() > MAX_JOBS) {
+            return HttpResponses.errorJSON(Messages.ChoicesBatchAction_tooManyJobs(MAX_JOBS));
+        }
+
+        int count = limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        Authentication auth = Jenkins.getAuthentication2();
+        Map<String, Callable<BuildNameIndex.Lookup>> tasks = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        // ETag 的组成部分：参数配置和上游作业的构建状态版本；有时间窗口的查询另外等待结果
+        List<Object> etagParts = new ArrayList<>(List.of(count, maxAgeDays));
+        Set<String> windowed = new LinkedHashSet<>();
+
+        // 下游作业的每个参数定义，按查询键去重，比较 ETag 之后再提交
+        Map<Job<?, ?>, List<JobBuildNameParameterDefinition>> definitionsByJob = new LinkedHashMap<>();
+        for (String jobName : jobNames) {
+            // 只能发现而不能读取的作业与不存在的作业一样列入 missing
+            Job<?, ?> job = JobNameIndex.getVisibleJob(jenkins, jobName);
+            ParametersDefinitionProperty property = job == null ? null : job.getProperty(ParametersDefinitionProperty.class);
+            if (property == null) {
+                missing.add(jobName);
+                continue;
+            }
+
+            // 相对路径按下游作业所在的文件夹解析，不依赖监听器是否已经记录所属作业
+            ItemGroup<?> context = job.getParent();
+            List<JobBuildNameParameterDefinition> definitions = new ArrayList<>();
+            for (ParameterDefinition definition : property.getParameterDefinitions()) {
+                if (definition instanceof JobBuildNameParameterDefinition jobBuildName) {
+                    definitions.add(jobBuildName);
+                    String lookupKey = jobBuildName.getLookupKey(context);
+                    etagParts.add(job.getFullName() + "/" + jobBuildName.getName() + "=" + jobBuildName.getDefaultValue()
+                            + "\n" + lookupKey + "\n" + versionsOf(jobBuildName.getJobName(), context));
+                    if (jobBuildName.getMaxAgeDays() > 0) {
+                        windowed.add(lookupKey);
+                    }
+                    tasks.putIfAbsent(lookupKey, () -> JobBuildNameParameterDefinition.getBuildNames(
+                            jobBuildName.getJobName(), context, jobBuildName.getMaxBuildCount(), jobBuildName.getMaxAgeDays()));
+                }
+            }
+            definitionsByJob.put(job, definitions);
+        }
+
+        for (String upstreamName : upstreamNames) {
+            String lookupKey = upstreamKey(upstreamName, count, maxAgeDays);
+            etagParts.add(lookupKey + "\n" + versionsOf(upstreamName, null));
+            if (maxAgeDays > 0) {
+                windowed.add(lookupKey);
+            }
+            tasks.putIfAbsent(lookupKey, () -> JobBuildNameParameterDefinition.getBuildNames(upstreamName, null, count, maxAgeDays));
+        }
+        etagParts.add(missing);
+
+        String etag = null;
+        if (windowed.isEmpty()) {
+            // 没有时间窗口时在查询之前比较，未变化的请求不读取构建历史
+            etag = ChoicesETag.of(List.of(), etagParts.toArray());
+            if (ChoicesETag.matches(req, etag)) {
+                return ChoicesETag.notModified(etag);
+            }
+        }
+
+        Map<String, Future<BuildNameIndex.Lookup>> lookups = new LinkedHashMap<>();
+        tasks.forEach((key, task) -> lookups.put(key, submit(auth, task)));
+
+        if (etag == null) {
+            for (String lookupKey : windowed) {
+                etagParts.add(ChoicesETag.windowOf(await(lookups.get(lookupKey))));
+            }
+            etag = ChoicesETag.of(List.of(), etagParts.toArray());
+            if (ChoicesETag.matches(req, etag)) {
+                return ChoicesETag.notModified(etag);
+            }
+        }
+
+        JSONObject jobs = new JSONObject();
+        for (Map.Entry<Job<?, ?>, List<JobBuildNameParameterDefinition>> entry : definitionsByJob.entrySet()) {
+            ItemGroup<?> context = entry.getKey().getParent();
+            JSONObject parameters = new JSONObject();
+            for (JobBuildNameParameterDefinition definition : entry.getValue()) {
+                ChoicesSnapshot snapshot = definition.toSnapshot(await(lookups.get(definition.getLookupKey(context))));
+                JSONObject json = new JSONObject();
+                json.put("choices", snapshot.getChoices());
+                json.put("defaultValue", snapshot.getDefaultValue());
+                json.put("truncated", snapshot.isTruncated());
+                parameters.put(definition.getName(), json);
+            }
+            jobs.put(entry.getKey().getFullName(), parameters);
+        }
+
+        JSONObject upstream = new JSONObject();
+        for (String upstreamName : upstreamNames) {
+            BuildNameIndex.Lookup lookup = await(lookups.get(upstreamKey(upstreamName, count, maxAgeDays)));
+            JSONObject json = new JSONObject();
+            json.put("choices", lookup.getBuildNames());
+            json.put("truncated", lookup.truncated());
+            upstream.put(upstreamName, json);
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("jobs", jobs);
+        json.put("upstream", upstream);
+        json.put("missing", JSONArray.fromObject(missing));
+        return ChoicesETag.okJSON(etag, json);
+    }
+
+    /**
+     * 当前用户能访问的上游作业的构建状态版本；没有权限的作业在查询中同样得到空结果。
+     */
+    private static String versionsOf(String jobName, ItemGroup<?> context) {
+        try {
+            return ChoicesETag.versionsOf(BuildNameSources.resolve(jobName, context));
+        } catch (AccessDeniedException e) {
+            return "";
+        }
+    }
+
+    private static Set<String> parameterValues(StaplerRequest2 req, String name) {
+        Set<String> values = new LinkedHashSet<>();
+        String[] parameters = req.getParameterValues(name);
+        if (parameters != null) {
+            for (String parameter : parameters) {
+                if (parameter != null && !parameter.isBlank()) {
+                    values.add(parameter.trim());
+                }
+            }
+        }
+        return values;
+    }
+
+    private static String upstreamKey(String upstreamName, int count, int maxAgeDays) {
+        return "\n" + upstreamName + "\n" + count + "\n" + maxAgeDays;
+    }
+
+    /**
+     * 查询在线程池中以请求用户的身份执行，权限检查与逐个请求时一致。
+     */
+    private static Future<BuildNameIndex.Lookup> submit(Authentication auth, Callable<BuildNameIndex.Lookup> task) {
+        return EXECUTOR.submit(() -> {
+            try (ACLContext ignored = ACL.as2(auth)) {
+                return task.call();
+            }
+        });
+    }
+
+    private static BuildNameIndex.Lookup await(Future<BuildNameIndex.Lookup> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return BuildNameIndex.Lookup.EMPTY;
+        } catch (ExecutionException e) {
+            LOGGER.log(Level.FINE, "Failed to look up choices", e.getCause());
+            return BuildNameIndex.Lookup.EMPTY;
+        }
+    }
+}
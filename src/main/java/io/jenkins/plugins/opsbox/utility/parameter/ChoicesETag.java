@@ -0,0 +1,93 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import hudson.Util;
+import hudson.model.Job;
+import jakarta.servlet.ServletException;
+import net.sf.json.JSONObject;
+import org.kohsuke.stapler.HttpResponse;
+import org.kohsuke.stapler.HttpResponses;
+import org.kohsuke.stapler.StaplerRequest2;
+import org.kohsuke.stapler.StaplerResponse2;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 选项接口和批量接口的条件请求支持：ETag 由解析出的上游作业及其构建状态版本和查询参数生成，
+ * 客户端带上 {@code If-None-Match} 且未变化时返回 304，不读取构建历史。
+ * 设置了时间窗口的查询还包含窗口内的构建名称，构建移出窗口时 ETag 随之变化；这些名称取自内存中的索引。
+ * {@code api/json} 导出的选项不支持条件请求，轮询方应使用批量接口。
+ */
+final class ChoicesETag {
+
+    private ChoicesETag() {
+    }
+
+    static String of(List<Job<?, ?>> jobs, Object... query) {
+        StringBuilder key = new StringBuilder(versionsOf(jobs));
+        for (Object part : query) {
+            key.append(part).append(';');
+        }
+        return "W/\"" + Util.getDigestOf(key.toString()) + "\"";
+    }
+
+    /**
+     * 各上游作业的构建状态版本，任一作业有新增、修改或删除的构建时变化。
+     */
+    static String versionsOf(List<Job<?, ?>> jobs) {
+        StringBuilder versions = new StringBuilder();
+        for (Job<?, ?> job : jobs) {
+            versions.append(job.getFullName()).append('@').append(BuildNameIndex.getVersion(job)).append(';');
+        }
+        return versions.toString();
+    }
+
+    /**
+     * 构建移出时间窗口时没有任何事件，用窗口内的构建代替当前时间参与 ETag，窗口内容不变时 ETag 不变。
+     */
+    static String windowOf(BuildNameIndex.Lookup lookup) {
+        return lookup.getBuildNames() + (lookup.truncated() ? "+" : "");
+    }
+
+    static boolean matches(StaplerRequest2 req, String etag) {
+        String header = req.getHeader("If-None-Match");
+        if (header == null) {
+            return false;
+        }
+        String opaque = opaqueOf(etag);
+        for (String candidate : header.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || opaqueOf(trimmed).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueOf(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    static HttpResponse notModified(String etag) {
+        return new HttpResponse() {
+            @Override
+            public void generateResponse(StaplerRequest2 req, StaplerResponse2 rsp, Object node) {
+                rsp.setHeader("ETag", etag);
+                rsp.setStatus(304);
+            }
+        };
+    }
+
+    static HttpResponse okJSON(String etag, JSONObject json) {
+        return new HttpResponse() {
+            @Override
+            public void generateResponse(StaplerRequest2 req, StaplerResponse2 rsp, Object node)
+                    throws IOException, ServletException {
+                rsp.setHeader("ETag", etag);
+                // 允许缓存，但每次使用前都要重新验证
+                rsp.setHeader("Cache-Control", "private, no-cache");
+                HttpResponses.okJSON(json).generateResponse(req, rsp, node);
+            }
+        };
+    }
+}
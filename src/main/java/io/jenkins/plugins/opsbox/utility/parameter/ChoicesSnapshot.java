@@ -0,0 +1,28 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 一次查询得到的不可变选项：选项、默认值和是否截断。同一请求内 {@code api/json} 导出的
+ * {@code choices}、{@code truncated} 和默认参数值共用一份，批量接口按相同方式生成每个参数的结果。
+ */
+@Getter
+public final class ChoicesSnapshot {
+
+    private final List<String> choices;
+    private final String defaultValue;
+    // 扫描预算耗尽，选项可能不完整
+    private final boolean truncated;
+
+    ChoicesSnapshot(List<String> choices, String defaultValue) {
+        this(choices, defaultValue, false);
+    }
+
+    ChoicesSnapshot(List<String> choices, String defaultValue, boolean truncated) {
+        this.choices = List.copyOf(choices);
+        this.defaultValue = defaultValue == null ? this.choices.get(0) : defaultValue;
+        this.truncated = truncated;
+    }
+}
@@ -0,0 +1,141 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import hudson.init.InitMilestone;
+import hudson.init.Initializer;
+import hudson.model.ItemGroup;
+import hudson.model.Job;
+import hudson.model.ParameterDefinition;
+import hudson.model.ParametersDefinitionProperty;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.DaemonThreadFactory;
+import hudson.util.NamingThreadFactory;
+import jenkins.model.Jenkins;
+import jenkins.util.ContextResettingExecutorService;
+import jenkins.util.SystemProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 启动后在后台预热 jobBuildNameParam 的选项：找出所有作业中的参数定义，按查询键去重后在有界线程池中查询，
+ * 重启后第一个打开参数页面的用户不再承担冷扫描。预热不阻塞启动，进度写入日志并通过指标输出。
+ */
+public final class ChoicesWarmup {
+
+    private static final Logger LOGGER = Logger.getLogger(ChoicesWarmup.class.getName());
+
+    private static final boolean ENABLED = SystemProperties.getBoolean(ChoicesWarmup.class.getName() + ".enabled", true);
+
+    private static final int THREADS = SystemProperties.getInteger(ChoicesWarmup.class.getName() + ".threads", 2);
+
+    // 每完成这么多个查询输出一次进度
+    private static final int PROGRESS_STEP = 100;
+
+    private static final ExecutorService EXECUTOR;
+
+    static {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamingThreadFactory(new DaemonThreadFactory(), "ChoicesWarmup"));
+        pool.allowCoreThreadTimeOut(true);
+        EXECUTOR = new ContextResettingExecutorService(pool);
+    }
+
+    private static final AtomicInteger TOTAL = new AtomicInteger();
+    private static final AtomicInteger DONE = new AtomicInteger();
+    private static final AtomicInteger FAILED = new AtomicInteger();
+
+    private ChoicesWarmup() {
+    }
+
+    /**
+     * 作业配置加载完成后执行，只收集参数定义并提交任务，立即返回。
+     */
+    @Initializer(after = InitMilestone.JOB_CONFIG_ADAPTED)
+    public static void onStartup() {
+        if (!ENABLED) {
+            LOGGER.fine("Choices warm-up is disabled");
+            return;
+        }
+        start();
+    }
+
+    /**
+     * 提交预热任务并返回任务数。
+     */
+    static int start() {
+        Map<String, Runnable> lookups = new LinkedHashMap<>();
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            for (Job<?, ?> job : Jenkins.get().allItems(Job.class)) {
+                ParametersDefinitionProperty property = job.getProperty(ParametersDefinitionProperty.class);
+                if (property == null) {
+                    continue;
+                }
+                for (ParameterDefinition definition : property.getParameterDefinitions()) {
+                    if (definition instanceof JobBuildNameParameterDefinition jobBuildName) {
+                        // 监听器在启动完成后才会记录所属作业，这里直接按作业所在的文件夹解析相对路径
+                        ItemGroup<?> context = job.getParent();
+                        lookups.putIfAbsent(jobBuildName.getLookupKey(context), () ->
+                                JobBuildNameParameterDefinition.getBuildNames(jobBuildName.getJobName(), context,
+                                        jobBuildName.getMaxBuildCount(), jobBuildName.getMaxAgeDays()));
+                    }
+                }
+            }
+        }
+
+        TOTAL.set(lookups.size());
+        DONE.set(0);
+        FAILED.set(0);
+        if (lookups.isEmpty()) {
+            return 0;
+        }
+
+        LOGGER.info(() -> "Warming up choices of " + lookups.size() + " job build name parameters");
+        long start = System.currentTimeMillis();
+        for (Map.Entry<String, Runnable> lookup : lookups.entrySet()) {
+            EXECUTOR.execute(() -> warm(lookup.getKey(), lookup.getValue(), start));
+        }
+        return lookups.size();
+    }
+
+    private static void warm(String key, Runnable lookup, long start) {
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            lookup.run();
+        } catch (RuntimeException e) {
+            FAILED.incrementAndGet();
+            LOGGER.log(Level.FINE, "Failed to warm up choices of " + key.replace('\n', ' '), e);
+        }
+
+        int done = DONE.incrementAndGet();
+        int total = TOTAL.get();
+        if (done == total) {
+            LOGGER.info(() -> "Warmed up choices of " + total + " job build name parameters in "
+                    + (System.currentTimeMillis() - start) + " ms" + (FAILED.get() > 0 ? ", " + FAILED.get() + " failed" : ""));
+        } else if (done % PROGRESS_STEP == 0) {
+            LOGGER.info(() -> "Warmed up choices of " + done + "/" + total + " job build name parameters");
+        }
+    }
+
+    public static int getTotal() {
+        return TOTAL.get();
+    }
+
+    public static int getDone() {
+        return DONE.get();
+    }
+
+    public static int getFailed() {
+        return FAILED.get();
+    }
+
+    public static boolean isRunning() {
+        return DONE.get() < TOTAL.get();
+    }
+}
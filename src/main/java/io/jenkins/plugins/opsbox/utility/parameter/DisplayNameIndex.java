@@ -0,0 +1,299 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import hudson.model.Job;
+import hudson.model.Run;
+import io.jenkins.plugins.opsbox.utility.metrics.OpsboxMetrics;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ObjLongConsumer;
+import java.util.logging.Logger;
+
+/**
+ * 构建显示名称到构建号的索引，按作业全名保存，覆盖作业所有已完成的构建。
+ * 首次查询时从构建摘要文件建立，之后由 {@link BuildNameIndex} 的构建事件维护，按名称解析构建不再随历史长度变慢。
+ * 条目计入 {@link BuildNameIndex} 的作业数和内存上限，与其条目一起按最近访问时间淘汰和过期。
+ */
+public final class DisplayNameIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(DisplayNameIndex.class.getName());
+
+    // 每个构建在两个 HashMap 和 TreeSet 中的固定开销估算
+    private static final int BUILD_OVERHEAD = 160;
+
+    private static final ConcurrentMap<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    // 正在进行的建立，按作业全名；同一作业的并发未命中共用一次遍历
+    private static final ConcurrentMap<String, CompletableFuture<Entry>> LOADS = new ConcurrentHashMap<>();
+
+    private DisplayNameIndex() {
+    }
+
+    /**
+     * 一个作业的双向映射；同名构建按构建号保存，取最新的一个。
+     */
+    private static final class Entry {
+        private final Map<String, TreeSet<Integer>> numbersByName = new HashMap<>();
+        private final Map<Integer, String> nameByNumber = new HashMap<>();
+        private final AtomicLong lastAccess = new AtomicLong(System.currentTimeMillis());
+        // 扫描预算耗尽时为 false，不完整的条目不写入索引
+        private boolean complete = true;
+        private long weight = BuildNameIndex.ENTRY_OVERHEAD;
+        // 在 ENTRIES 中时权重计入 BuildNameIndex 的总权重
+        private boolean installed;
+
+        synchronized void put(int number, String displayName) {
+            remove(number);
+            nameByNumber.put(number, displayName);
+            numbersByName.computeIfAbsent(displayName, k -> new TreeSet<>()).add(number);
+            addWeight(BUILD_OVERHEAD + displayName.length());
+        }
+
+        synchronized void remove(int number) {
+            String displayName = nameByNumber.remove(number);
+            if (displayName == null) {
+                return;
+            }
+            TreeSet<Integer> numbers = numbersByName.get(displayName);
+            numbers.remove(number);
+            if (numbers.isEmpty()) {
+                numbersByName.remove(displayName);
+            }
+            addWeight(-(BUILD_OVERHEAD + displayName.length()));
+        }
+
+        private void addWeight(long delta) {
+            weight += delta;
+            if (installed) {
+                BuildNameIndex.addWeight(delta);
+            }
+        }
+
+        synchronized void install() {
+            installed = true;
+            BuildNameIndex.addWeight(weight);
+        }
+
+        synchronized void uninstall() {
+            if (installed) {
+                installed = false;
+                BuildNameIndex.addWeight(-weight);
+            }
+        }
+
+        synchronized Integer newest(String displayName) {
+            TreeSet<Integer> numbers = numbersByName.get(displayName);
+            return numbers == null ? null : numbers.last();
+        }
+
+        /**
+         * 比 {@code number} 更早的最新同名构建号。
+         */
+        synchronized Integer olderThan(String displayName, int number) {
+            TreeSet<Integer> numbers = numbersByName.get(displayName);
+            return numbers == null ? null : numbers.lower(number);
+        }
+
+        synchronized int size() {
+            return nameByNumber.size();
+        }
+    }
+
+    /**
+     * 返回作业中显示名称为 {@code displayName} 的最新已完成构建，没有时返回 {@code null}。
+     */
+    @CheckForNull
+    public static Run<?, ?> resolve(@Nonnull Job<?, ?> job, String displayName) {
+        if (displayName == null) {
+            return null;
+        }
+
+        Entry entry = ENTRIES.get(job.getFullName());
+        if (entry == null) {
+            entry = load(job);
+        }
+        entry.lastAccess.set(System.currentTimeMillis());
+        for (Integer number = entry.newest(displayName); number != null; number = entry.olderThan(displayName, number)) {
+            Run<?, ?> run = job.getBuildByNumber(number);
+            if (run != null && !run.isBuilding() && displayName.equals(run.getDisplayName())) {
+                return run;
+            }
+            // 错过了改名或删除事件时修正条目；仍在进行的构建保留，继续找更早的同名构建
+            if (run == null) {
+                entry.remove(number);
+            } else if (!displayName.equals(run.getDisplayName())) {
+                entry.put(number, run.getDisplayName());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在多个作业中解析，返回时间最新的同名构建。
+     */
+    @CheckForNull
+    public static Run<?, ?> resolve(@Nonnull List<Job<?, ?>> jobs, String displayName) {
+        Run<?, ?> newest = null;
+        for (Job<?, ?> job : jobs) {
+            Run<?, ?> run = resolve(job, displayName);
+            if (run != null && (newest == null || run.getTimeInMillis() > newest.getTimeInMillis())) {
+                newest = run;
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * 同一作业已有进行中的建立时等待它的结果，否则自己建立。
+     */
+    private static Entry load(Job<?, ?> job) {
+        String key = job.getFullName();
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> running = LOADS.putIfAbsent(key, future);
+        if (running != null) {
+            Entry shared = await(running);
+            return shared != null ? shared : buildAndInstall(job);
+        }
+
+        try {
+            Entry entry = buildAndInstall(job);
+            future.complete(entry);
+            return entry;
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+            throw t;
+        } finally {
+            LOADS.remove(key, future);
+        }
+    }
+
+    private static Entry await(CompletableFuture<Entry> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 在锁外建立条目再写入索引。与 {@link BuildNameIndex} 相同，建立期间作业的版本变化时条目可能已经过时，只用于本次查询。
+     */
+    private static Entry buildAndInstall(Job<?, ?> job) {
+        String version = BuildNameIndex.getVersion(job);
+        Entry loaded = build(job);
+        if (!loaded.complete) {
+            return loaded;
+        }
+
+        Entry installed = ENTRIES.compute(job.getFullName(), (key, existing) -> {
+            if (existing != null) {
+                return existing;
+            }
+            if (!version.equals(BuildNameIndex.getVersion(job))) {
+                return null;
+            }
+            loaded.install();
+            return loaded;
+        });
+        BuildNameIndex.evict();
+        return installed == null ? loaded : installed;
+    }
+
+    private static Entry build(Job<?, ?> job) {
+        Entry entry = new Entry();
+        List<BuildSummaryFile.Summary> summaries = BuildSummaryFile.read(job);
+        if (summaries != null) {
+            for (BuildSummaryFile.Summary summary : summaries) {
+                entry.put(summary.number(), summary.displayName());
+            }
+            return entry;
+        }
+
+        // 摘要文件不可用时遍历构建，与 BuildNameIndex 使用相同的扫描预算
+        long start = System.nanoTime();
+        int scanned = 0;
+        for (Run<?, ?> run : job.getBuilds()) {
+            if (scanned >= BuildNameIndex.SCAN_MAX_RUNS
+                    || System.nanoTime() - start > TimeUnit.MILLISECONDS.toNanos(BuildNameIndex.SCAN_MAX_MILLIS)) {
+                OpsboxMetrics.CHOICES_SCAN_TRUNCATED.increment();
+                int count = scanned;
+                LOGGER.fine(() -> "Scan budget exhausted for " + job.getFullName() + " after " + count + " builds");
+                entry.complete = false;
+                return entry;
+            }
+            scanned++;
+            if (!run.isBuilding()) {
+                entry.put(run.getNumber(), run.getDisplayName());
+            }
+        }
+        return entry;
+    }
+
+    static void onRunChanged(Run<?, ?> run) {
+        if (run.isBuilding()) {
+            return;
+        }
+        ENTRIES.computeIfPresent(run.getParent().getFullName(), (key, entry) -> {
+            entry.put(run.getNumber(), run.getDisplayName());
+            return entry;
+        });
+    }
+
+    static void onRunDeleted(Run<?, ?> run) {
+        ENTRIES.computeIfPresent(run.getParent().getFullName(), (key, entry) -> {
+            entry.remove(run.getNumber());
+            return entry;
+        });
+    }
+
+    public static void invalidate(String jobFullName) {
+        if (jobFullName != null) {
+            remove(jobFullName);
+        }
+    }
+
+    public static void clear() {
+        for (String key : ENTRIES.keySet()) {
+            remove(key);
+        }
+    }
+
+    static boolean remove(String jobFullName) {
+        boolean[] removed = new boolean[1];
+        ENTRIES.computeIfPresent(jobFullName, (key, entry) -> {
+            entry.uninstall();
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * 供 {@link BuildNameIndex} 淘汰和过期时遍历各条目的最近访问时间。
+     */
+    static void forEachAccess(ObjLongConsumer<String> action) {
+        ENTRIES.forEach((key, entry) -> action.accept(key, entry.lastAccess.get()));
+    }
+
+    public static int size() {
+        return ENTRIES.size();
+    }
+
+    static int size(Job<?, ?> job) {
+        Entry entry = ENTRIES.get(job.getFullName());
+        return entry == null ? 0 : entry.size();
+    }
+}
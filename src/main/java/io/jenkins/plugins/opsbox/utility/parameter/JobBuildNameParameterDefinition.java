@@ -1,32 +1,53 @@
 package io.jenkins.plugins.opsbox.utility.parameter;
 
 import hudson.Extension;
+import hudson.XmlFile;
 import hudson.model.*;
+import hudson.model.listeners.ItemListener;
+import hudson.model.listeners.SaveableListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
 import hudson.util.FormValidation;
-import hudson.util.RunList;
+import io.jenkins.plugins.opsbox.utility.metrics.OpsboxMetrics;
 import jenkins.model.Jenkins;
+import jenkins.util.SystemProperties;
 import lombok.Getter;
 import net.sf.json.JSONObject;
 import org.jenkinsci.Symbol;
 import org.kohsuke.stapler.*;
 import org.kohsuke.stapler.export.Exported;
+import org.kohsuke.stapler.verb.GET;
 import org.kohsuke.stapler.verb.POST;
+import org.springframework.security.access.AccessDeniedException;
 
 import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
 public class JobBuildNameParameterDefinition extends SimpleParameterDefinition {
 
+    private static final Logger LOGGER = Logger.getLogger(JobBuildNameParameterDefinition.class.getName());
+
     private static final String DEFAULT_BUILD_NAME = "0.0.1-1+999";
     private static final int DEFAULT_MAX_BUILD_COUNT = 5;
+    private static final int MAX_CHOICES_PAGE_SIZE = 100;
+    private static final int AUTO_COMPLETE_LIMIT = SystemProperties.getInteger(
+            JobBuildNameParameterDefinition.class.getName() + ".autoCompleteLimit", 20);
 
     @Getter
     private String jobName;
     private int maxBuildCount;
+    // 只提供最近若干天内的构建，0 表示不限制
+    private int maxAgeDays;
 
+    @Getter
     private final String defaultValue;
 
+    // 所属作业，由监听器在作业加载和保存时设置，用于相对路径解析
+    private transient volatile Job<?, ?> owner;
+
     @DataBoundConstructor
     public JobBuildNameParameterDefinition(String name, String jobName, String description) {
         super(name);
@@ -45,6 +66,15 @@ public class JobBuildNameParameterDefinition extends SimpleParameterDefinition {
         this.maxBuildCount = maxBuildCount;
     }
 
+    public int getMaxAgeDays() {
+        return Math.max(maxAgeDays, 0);
+    }
+
+    @DataBoundSetter
+    public void setMaxAgeDays(int maxAgeDays) {
+        this.maxAgeDays = maxAgeDays;
+    }
+
     public JobBuildNameParameterDefinition(String name, String jobName, int maxBuildCount, String defaultValue, String description) {
         super(name);
         setDescription(description);
@@ -53,84 +83,245 @@ public class JobBuildNameParameterDefinition extends SimpleParameterDefinition {
         this.defaultValue = defaultValue;
     }
 
-    private static <T extends Item> T find(String jobName, Class<T> type) {
+    void setOwner(Job<?, ?> owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * 解析作业名称时的上下文：所属作业所在的文件夹；所属作业未知时取当前请求路径上的作业。
+     */
+    ItemGroup<?> getContext() {
+        Job<?, ?> job = owner;
+        if (job == null) {
+            StaplerRequest2 req = Stapler.getCurrentRequest2();
+            job = req == null ? null : req.findAncestorObject(Job.class);
+        }
+        return job == null ? null : job.getParent();
+    }
+
+    static ItemGroup<?> contextOf(Item item) {
+        if (item instanceof ItemGroup<?> group) {
+            return group;
+        }
+        return item == null ? null : item.getParent();
+    }
+
+    static <T extends Item> T find(String jobName, Class<T> type) {
+        return find(jobName, type, null);
+    }
+
+    /**
+     * 先相对 {@code context}（通常是所属作业所在的文件夹）解析，支持 {@code ../sibling} 形式的路径，
+     * 然后按全名查找，最后按短名称查找。
+     */
+    static <T extends Item> T find(String jobName, Class<T> type, ItemGroup<?> context) {
         Jenkins jenkins = Jenkins.getInstanceOrNull();
         if (jenkins == null) {
             return null;
         }
 
-        T item = jenkins.getItemByFullName(jobName, type);
+        long start = System.nanoTime();
+        T item = null;
+        if (context != null && context != jenkins && jobName != null) {
+            // 只访问路径上的文件夹，找不到时 Items.getItem 会按全名再查一次
+            item = Items.getItem(jobName, context, type);
+            if (item != null) {
+                item.checkPermission(Item.READ);
+                if (item.getFullName().equals(jobName)) {
+                    OpsboxMetrics.FIND_FULL_NAME.increment();
+                } else {
+                    OpsboxMetrics.FIND_RELATIVE.increment();
+                }
+            }
+        }
+
+        if (item != null) {
+            OpsboxMetrics.FIND_TIME.recordSince(start);
+            return item;
+        }
+
+        item = jenkins.getItemByFullName(jobName, type);
 
         // 添加权限检查
         if (item != null) {
           item.checkPermission(Item.READ);
+          OpsboxMetrics.FIND_FULL_NAME.increment();
+        } else if (JobNameIndex.isLoaded() && Job.class.isAssignableFrom(type)) {
+            // 通过短名称索引查找，同名作业按全名字典序取第一个可访问的
+            for (String fullName : JobNameIndex.getFullNames(jobName)) {
+                T candidate = jenkins.getItemByFullName(fullName, type);
+                if (candidate != null) {
+                    candidate.checkPermission(Item.READ);
+                    item = candidate;
+                    OpsboxMetrics.FIND_SHORT_NAME_INDEX.increment();
+                    break;
+                }
+            }
         } else {
             // 在搜索所有项目时也要检查权限
             for (T allItem : jenkins.getAllItems(type)) {
                 if (allItem.getName().equals(jobName)) {
                   allItem.checkPermission(Item.READ);
                   item = allItem;
+                  OpsboxMetrics.FIND_SCAN.increment();
                   break;
                 }
             }
         }
+
+        if (item == null) {
+            OpsboxMetrics.FIND_MISS.increment();
+        }
+        OpsboxMetrics.FIND_TIME.recordSince(start);
         return item;
     }
 
-    private static List<String> getBuildNames(String jobName, int maxBuildCount) {
-        Job job = find(jobName, Job.class);
-        if (job == null) {
-            return new ArrayList<>();
-        }
+    static BuildNameIndex.Lookup getBuildNames(String jobName, ItemGroup<?> context, int maxBuildCount,
+                                               int maxAgeDays) {
+        return BuildNameSources.lookup(BuildNameSources.resolve(jobName, context), maxBuildCount, since(maxAgeDays));
+    }
 
-        List<String> buildNames = new ArrayList<>();
-        RunList<Run> runList = job.getBuilds().newBuilds();
+    /**
+     * 最近 {@code maxAgeDays} 天的起始时间戳，不限制时为 {@link Long#MIN_VALUE}。
+     */
+    public static long since(int maxAgeDays) {
+        return maxAgeDays <= 0 ? Long.MIN_VALUE : System.currentTimeMillis() - TimeUnit.DAYS.toMillis(maxAgeDays);
+    }
 
-        for (Run run: runList) {
-            if (buildNames.size() >= maxBuildCount) {
-                break;
-            }
+    @Exported
+    public List<String> getChoices() {
+        return getChoicesSnapshot().getChoices();
+    }
 
-            if (run.isBuilding()) {
-                continue;
-            }
+    /**
+     * 扫描上游构建历史时预算耗尽，{@link #getChoices()} 只包含部分结果。
+     */
+    @Exported
+    public boolean isTruncated() {
+        return getChoicesSnapshot().isTruncated();
+    }
 
-            Result result = run.getResult();
+    /**
+     * 同一请求内只计算一次选项，导出的选项、截断标记和默认值共用这份快照。
+     */
+    public ChoicesSnapshot getChoicesSnapshot() {
+        StaplerRequest2 req = Stapler.getCurrentRequest2();
+        if (req == null) {
+            return createChoicesSnapshot();
+        }
 
-            if (result != null && result.isBetterOrEqualTo(Result.SUCCESS)) {
-                buildNames.add(run.getDisplayName());
-            }
+        String key = ChoicesSnapshot.class.getName() + "@" + System.identityHashCode(this);
+        Object cached = req.getAttribute(key);
+        if (cached instanceof ChoicesSnapshot snapshot) {
+            return snapshot;
         }
 
-        return buildNames;
+        ChoicesSnapshot snapshot = createChoicesSnapshot();
+        req.setAttribute(key, snapshot);
+        return snapshot;
     }
 
-    @Exported
-    public List<String> getChoices() {
-        List<String> choices = getBuildNames(this.jobName, this.maxBuildCount);
+    private ChoicesSnapshot createChoicesSnapshot() {
+        long start = System.nanoTime();
+        ChoicesSnapshot snapshot = toSnapshot(getBuildNames(this.jobName, getContext(), getMaxBuildCount(), getMaxAgeDays()));
+        OpsboxMetrics.CHOICES_TIME.recordSince(start);
+        return snapshot;
+    }
+
+    ChoicesSnapshot toSnapshot(BuildNameIndex.Lookup lookup) {
+        List<String> choices = lookup.getBuildNames();
         if (choices.isEmpty()) {
             choices.add(DEFAULT_BUILD_NAME);
         }
+        return new ChoicesSnapshot(choices, defaultValue, lookup.truncated());
+    }
+
+    /**
+     * 选项只取决于解析上下文、上游作业名、数量和时间窗口，这些都相同的参数定义可以共用一次查询。
+     */
+    String getLookupKey() {
+        return getLookupKey(getContext());
+    }
 
-        return choices;
+    String getLookupKey(ItemGroup<?> context) {
+        return (context == null ? "" : context.getFullName()) + "\n" + jobName + "\n" + getMaxBuildCount() + "\n" + getMaxAgeDays();
     }
 
+    /**
+     * 参数页面异步加载选项时使用的地址，指向所属作业下的描述符。
+     */
+    public String getChoicesUrl() {
+        StaplerRequest2 req = Stapler.getCurrentRequest2();
+        if (req == null) {
+            return null;
+        }
+
+        Job<?, ?> owner = req.findAncestorObject(Job.class);
+        String base = req.getContextPath() + "/" + (owner == null ? "" : owner.getUrl());
+        return base + getDescriptor().getDescriptorUrl() + "/choices";
+    }
+
+    /**
+     * 定时、SCM、上游触发等没有显式传值的构建同样记录默认值对应的上游构建，只在选项范围内查找；
+     * 没有配置默认值时取第一个选项，占位的默认名称不查找。
+     */
     @Override
     public StringParameterValue getDefaultParameterValue() {
-        List<String> choices = getChoices();
-        return new StringParameterValue(getName(), defaultValue == null ? choices.get(0) : defaultValue, getDescription());
+        String value = defaultValue == null ? getChoicesSnapshot().getDefaultValue() : defaultValue;
+        if (DEFAULT_BUILD_NAME.equals(value)) {
+            return new JobBuildNameParameterValue(getName(), value, getDescription());
+        }
+        return createValue(value, false);
     }
 
     @Override
     public ParameterValue createValue(StaplerRequest2 req, JSONObject jo) {
         StringParameterValue value = req.bindJSON(StringParameterValue.class, jo);
-        value.setDescription(getDescription());
-        return value;
+        return createValue(value.getValue());
     }
 
     @Override
     public StringParameterValue createValue(String value) {
-        return new StringParameterValue(getName(), value, getDescription());
+        return createValue(value, true);
+    }
+
+    private StringParameterValue createValue(String value, boolean loadMore) {
+        if (value == null || DEFAULT_BUILD_NAME.equals(value)) {
+            return new JobBuildNameParameterValue(getName(), value, getDescription());
+        }
+
+        BuildNameIndex.BuildRecord record = null;
+        Job<?, ?> source = null;
+        try {
+            for (Job<?, ?> job : BuildNameSources.resolve(jobName, getContext())) {
+                BuildNameIndex.BuildRecord candidate = findRecord(job, value, loadMore);
+                // 多个来源有同名构建时与选项一致，取最新的一个
+                if (candidate != null && (record == null || candidate.timestamp() > record.timestamp())) {
+                    record = candidate;
+                    source = job;
+                }
+            }
+        } catch (AccessDeniedException e) {
+            // 触发构建的用户无权读取上游作业时只保留名称
+            LOGGER.fine(() -> "Cannot read " + jobName + " to record the build of " + value);
+        }
+
+        if (record == null) {
+            return new JobBuildNameParameterValue(getName(), value, getDescription());
+        }
+        return new JobBuildNameParameterValue(getName(), value, getDescription(), source.getFullName(), record.number());
+    }
+
+    /**
+     * 先在选项范围内查找，{@code loadMore} 时再看“加载更多”能翻到的范围。
+     */
+    private BuildNameIndex.BuildRecord findRecord(Job<?, ?> job, String value, boolean loadMore) {
+        long since = since(getMaxAgeDays());
+        BuildNameIndex.BuildRecord record = BuildNameIndex.find(job, value, getMaxBuildCount(), since);
+        if (record == null && loadMore && getMaxBuildCount() < MAX_CHOICES_PAGE_SIZE) {
+            record = BuildNameIndex.find(job, value, MAX_CHOICES_PAGE_SIZE, since);
+        }
+        return record;
     }
 
     @Extension
@@ -148,15 +339,124 @@ public class JobBuildNameParameterDefinition extends SimpleParameterDefinition {
             item.checkPermission(Item.READ);
             String errorMsg = Messages.JobBuildNameParameterDefinition_jobNotExists();
 
-            Job job = JobBuildNameParameterDefinition.find(jobName, Job.class);
+            ItemGroup<?> context = contextOf(item);
+            if (BuildNameSources.isMultiSource(jobName)) {
+                return checkJobNames(jobName, context);
+            }
+
+            Job job = JobBuildNameParameterDefinition.find(jobName, Job.class, context);
             if (job == null) {
                 return FormValidation.error(errorMsg);
             }
 
+            // 相对路径能解析到的作业不存在歧义
+            if (!job.getFullName().equals(jobName) && !job.getParent().equals(context)
+                    && !jobName.contains("/")) {
+                List<String> fullNames = JobNameIndex.getFullNames(jobName);
+                if (fullNames.size() > 1) {
+                    return FormValidation.warning(Messages.JobBuildNameParameterDefinition_jobNameAmbiguous(
+                            jobName, String.join(", ", fullNames), job.getFullName()));
+                }
+            }
+
             return FormValidation.ok();
         }
 
+        private FormValidation checkJobNames(String jobName, ItemGroup<?> context) {
+            List<String> missing = new ArrayList<>();
+            for (String token : BuildNameSources.split(jobName)) {
+                if (BuildNameSources.resolveToken(token, context).isEmpty()) {
+                    missing.add(token);
+                }
+            }
+
+            if (!missing.isEmpty()) {
+                return FormValidation.error(Messages.JobBuildNameParameterDefinition_jobsNotExist(String.join(", ", missing)));
+            }
+            return FormValidation.ok();
+        }
+
+        /**
+         * 分页返回上游作业的构建名称，供参数页面异步加载和“加载更多”使用。支持 {@code If-None-Match} 条件请求。
+         */
+        @GET
+        public HttpResponse doChoices(StaplerRequest2 req, @QueryParameter String jobName, @QueryParameter int offset,
+                                      @QueryParameter int limit, @QueryParameter int maxAgeDays,
+                                      @AncestorInPath Item item) {
+            if (item != null) {
+                item.checkPermission(Item.READ);
+            } else {
+                Jenkins.get().checkPermission(Jenkins.READ);
+            }
+
+            int from = Math.max(offset, 0);
+            int size = limit <= 0 ? DEFAULT_MAX_BUILD_COUNT : Math.min(limit, MAX_CHOICES_PAGE_SIZE);
+
+            List<Job<?, ?>> jobs = BuildNameSources.resolve(jobName, contextOf(item));
+            // 多取一条用于判断是否还有更多；有时间窗口时先查询，窗口内的构建参与 ETag
+            BuildNameIndex.Lookup lookup = maxAgeDays > 0
+                    ? BuildNameSources.lookup(jobs, from + size + 1, since(maxAgeDays)) : null;
+            String etag = ChoicesETag.of(jobs, jobName, from, size, maxAgeDays,
+                    lookup == null ? "" : ChoicesETag.windowOf(lookup));
+            if (ChoicesETag.matches(req, etag)) {
+                return ChoicesETag.notModified(etag);
+            }
+
+            if (lookup == null) {
+                lookup = BuildNameSources.lookup(jobs, from + size + 1, since(maxAgeDays));
+            }
+            List<String> buildNames = lookup.getBuildNames();
+            boolean hasMore = buildNames.size() > from + size;
+            List<String> page = new ArrayList<>(
+                    buildNames.subList(Math.min(from, buildNames.size()), Math.min(from + size, buildNames.size())));
+            if (from == 0 && page.isEmpty()) {
+                page.add(DEFAULT_BUILD_NAME);
+            }
+
+            JSONObject json = new JSONObject();
+            json.put("choices", page);
+            json.put("hasMore", hasMore);
+            json.put("truncated", lookup.truncated());
+            return ChoicesETag.okJSON(etag, json);
+        }
+
+        /**
+         * 按显示名称解析上游构建，返回构建号等信息；通过显示名称到构建号的索引查找，不扫描构建历史。
+         */
+        @GET
+        public HttpResponse doResolve(@QueryParameter String jobName, @QueryParameter String name,
+                                      @AncestorInPath Item item) {
+            if (item != null) {
+                item.checkPermission(Item.READ);
+            } else {
+                Jenkins.get().checkPermission(Jenkins.READ);
+            }
+
+            Run<?, ?> run = DisplayNameIndex.resolve(BuildNameSources.resolve(jobName, contextOf(item)), name);
+            if (run == null) {
+                return HttpResponses.errorJSON(Messages.JobBuildNameParameterDefinition_buildNotFound(name, jobName));
+            }
+
+            JSONObject json = new JSONObject();
+            json.put("job", run.getParent().getFullName());
+            json.put("number", run.getNumber());
+            json.put("displayName", run.getDisplayName());
+            json.put("url", run.getUrl());
+            json.put("result", String.valueOf(run.getResult()));
+            json.put("timestamp", run.getTimeInMillis());
+            return HttpResponses.okJSON(json);
+        }
+
         public AutoCompletionCandidates doAutoCompleteJobName(@QueryParameter String value) {
+            long start = System.nanoTime();
+            try {
+                return autoCompleteJobName(value);
+            } finally {
+                OpsboxMetrics.AUTOCOMPLETE_TIME.recordSince(start);
+            }
+        }
+
+        private AutoCompletionCandidates autoCompleteJobName(String value) {
             AutoCompletionCandidates candidates = new AutoCompletionCandidates();
 
             Jenkins jenkins = Jenkins.getInstanceOrNull();
@@ -164,10 +464,21 @@ public class JobBuildNameParameterDefinition extends SimpleParameterDefinition {
                 return candidates;
             }
 
-            // 获取所有可用的作业
+            if (JobNameIndex.isLoaded()) {
+                for (String jobFullName : JobNameIndex.search(value, AUTO_COMPLETE_LIMIT)) {
+                    candidates.add(jobFullName);
+                }
+                return candidates;
+            }
+
+            // 索引尚未加载时遍历所有可用的作业
             List<Job> allJobs = jenkins.getAllItems(Job.class);
 
             for (Job job : allJobs) {
+                if (candidates.getValues().size() >= AUTO_COMPLETE_LIMIT) {
+                    break;
+                }
+
                 String jobFullName = job.getFullName();
 
                 // 如果用户输入了值，进行过滤匹配
@@ -184,4 +495,55 @@ public class JobBuildNameParameterDefinition extends SimpleParameterDefinition {
             return candidates;
         }
     }
+
+    static void attachOwner(Job<?, ?> job) {
+        ParametersDefinitionProperty property = job.getProperty(ParametersDefinitionProperty.class);
+        if (property == null) {
+            return;
+        }
+        for (ParameterDefinition definition : property.getParameterDefinitions()) {
+            if (definition instanceof JobBuildNameParameterDefinition jobBuildName) {
+                jobBuildName.setOwner(job);
+            }
+        }
+    }
+
+    /**
+     * 参数定义本身不知道所属作业，作业加载、创建和保存配置时把所属作业记录到参数定义上。
+     */
+    @Extension
+    public static final class OwnerItemListener extends ItemListener {
+
+        @Override
+        public void onLoaded() {
+            try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+                for (Job<?, ?> job : Jenkins.get().allItems(Job.class)) {
+                    attachOwner(job);
+                }
+            }
+        }
+
+        @Override
+        public void onCreated(Item item) {
+            if (item instanceof Job<?, ?> job) {
+                attachOwner(job);
+            }
+        }
+
+        @Override
+        public void onCopied(Item src, Item item) {
+            onCreated(item);
+        }
+    }
+
+    @Extension
+    public static final class OwnerSaveableListener extends SaveableListener {
+
+        @Override
+        public void onChange(Saveable o, XmlFile file) {
+            if (o instanceof Job<?, ?> job) {
+                attachOwner(job);
+            }
+        }
+    }
 }
@@ -0,0 +1,76 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import hudson.model.Job;
+import hudson.model.Run;
+import hudson.model.StringParameterValue;
+import jenkins.model.Jenkins;
+import lombok.Getter;
+
+import javax.annotation.CheckForNull;
+import java.util.Objects;
+
+/**
+ * jobBuildNameParam 的参数值：值仍是构建显示名称，{@code params.X} 与之前一致；
+ * 同时记录选择时对应的上游作业全名和构建号，使用方可以直接定位构建，不需要再按名称扫描历史。
+ */
+@Getter
+public class JobBuildNameParameterValue extends StringParameterValue {
+
+    private static final long serialVersionUID = 1L;
+
+    // 上游作业全名，选择的名称没有对应的构建时为 null
+    @CheckForNull
+    private final String jobFullName;
+    // 上游构建号，没有对应的构建时为 0
+    private final int buildNumber;
+
+    public JobBuildNameParameterValue(String name, String value, String description) {
+        this(name, value, description, null, 0);
+    }
+
+    public JobBuildNameParameterValue(String name, String value, String description, String jobFullName, int buildNumber) {
+        super(name, value, description);
+        this.jobFullName = jobFullName;
+        this.buildNumber = buildNumber;
+    }
+
+    public boolean hasBuild() {
+        return jobFullName != null && buildNumber > 0;
+    }
+
+    /**
+     * 按作业全名和构建号直接取得上游构建；没有记录、没有权限或构建已删除时返回 {@code null}。
+     */
+    @CheckForNull
+    public Run<?, ?> getBuild() {
+        if (!hasBuild()) {
+            return null;
+        }
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        Job<?, ?> job = jenkins == null ? null : jenkins.getItemByFullName(jobFullName, Job.class);
+        return job == null ? null : job.getBuildByNumber(buildNumber);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof JobBuildNameParameterValue that) || !super.equals(o)) {
+            return false;
+        }
+        return buildNumber == that.buildNumber && Objects.equals(jobFullName, that.jobFullName);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), jobFullName, buildNumber);
+    }
+
+    @Override
+    public String toString() {
+        return hasBuild()
+                ? "(JobBuildNameParameterValue) " + getName() + "='" + getValue() + "' (" + jobFullName + " #" + buildNumber + ")"
+                : "(JobBuildNameParameterValue) " + getName() + "='" + getValue() + "'";
+    }
+}
@@ -0,0 +1,351 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import hudson.Extension;
+import hudson.model.Item;
+import hudson.model.ItemGroup;
+import hudson.model.Job;
+import hudson.model.listeners.ItemListener;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import jenkins.model.Jenkins;
+import org.springframework.security.access.AccessDeniedException;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.regex.Pattern;
+
+/**
+ * 作业名称索引，由 {@link ItemListener} 维护：短名称到全名的映射，以及用于自动补全的全名前缀和三元组索引。
+ */
+public final class JobNameIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private static final Comparator<String> SEARCH_ORDER =
+            String.CASE_INSENSITIVE_ORDER.thenComparing(Comparator.naturalOrder());
+
+    private static final ConcurrentMap<String, NavigableSet<String>> FULL_NAMES = new ConcurrentHashMap<>();
+
+    // 按不区分大小写的顺序排列的所有作业全名，用于前缀查询
+    private static final NavigableSet<String> SORTED_FULL_NAMES = new ConcurrentSkipListSet<>(SEARCH_ORDER);
+
+    // 小写全名的三元组到作业全名的倒排索引，用于子串查询
+    private static final ConcurrentMap<String, Set<String>> GRAMS = new ConcurrentHashMap<>();
+
+    private static volatile boolean loaded;
+
+    private JobNameIndex() {
+    }
+
+    /**
+     * 索引在 Jenkins 加载完所有作业之前不可用，调用方需要回退到遍历。
+     */
+    public static boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 返回短名称对应的所有作业全名，按字典序排列，保证同名作业的解析结果稳定。
+     */
+    @Nonnull
+    public static List<String> getFullNames(String shortName) {
+        if (shortName == null) {
+            return Collections.emptyList();
+        }
+        NavigableSet<String> fullNames = FULL_NAMES.get(shortName);
+        return fullNames == null ? Collections.emptyList() : List.copyOf(fullNames);
+    }
+
+    public static int size() {
+        return FULL_NAMES.size();
+    }
+
+    public static int getJobCount() {
+        return SORTED_FULL_NAMES.size();
+    }
+
+    /**
+     * 按相关度返回最多 {@code limit} 个作业全名：全名前缀匹配优先，其次是路径中某一段的前缀匹配，最后是子串匹配。
+     * 只返回当前用户可以读取的作业。
+     */
+    @Nonnull
+    public static List<String> search(String value, int limit) {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        String query = value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+        Set<String> results = new LinkedHashSet<>();
+
+        // 前缀匹配直接在有序集合上取子集
+        Collection<String> prefixMatches = query.isEmpty() ? SORTED_FULL_NAMES : prefixMatchesOf(query);
+        if (collectVisible(jenkins, prefixMatches, results, limit) || query.isEmpty()) {
+            return new ArrayList<>(results);
+        }
+
+        List<String> segmentMatches = new ArrayList<>();
+        List<String> substringMatches = new ArrayList<>();
+        for (String fullName : substringCandidates(query)) {
+            String lower = fullName.toLowerCase(Locale.ROOT);
+            if (results.contains(fullName) || !lower.contains(query)) {
+                continue;
+            }
+            if (lower.contains("/" + query)) {
+                segmentMatches.add(fullName);
+            } else {
+                substringMatches.add(fullName);
+            }
+        }
+        segmentMatches.sort(SEARCH_ORDER);
+        substringMatches.sort(SEARCH_ORDER);
+
+        if (!collectVisible(jenkins, segmentMatches, results, limit)) {
+            collectVisible(jenkins, substringMatches, results, limit);
+        }
+        return new ArrayList<>(results);
+    }
+
+    /**
+     * 不区分大小写的前缀匹配。集合按大小写区分次序排列同名变体，与查询只有大小写不同的全名（如查询 {@code foo}、
+     * 作业 {@code Foo}）排在下界之前，这里从下界往前补上，保持完全匹配排在最前。
+     */
+    private static Collection<String> prefixMatchesOf(String query) {
+        List<String> matches = new ArrayList<>();
+        for (String fullName : SORTED_FULL_NAMES.headSet(query, false).descendingSet()) {
+            if (!fullName.equalsIgnoreCase(query)) {
+                break;
+            }
+            matches.add(0, fullName);
+        }
+        matches.addAll(SORTED_FULL_NAMES.subSet(query, true, query + Character.MAX_VALUE, false));
+        return matches;
+    }
+
+    /**
+     * 返回与通配符模式匹配的作业全名，最多 {@code limit} 个，只包含当前用户可以读取的作业。
+     * 模式中的 {@code *} 匹配一个路径段内的任意字符，{@code **} 可以跨越路径段，{@code ?} 匹配单个字符。
+     */
+    @Nonnull
+    public static List<String> glob(String glob, int limit) {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null || glob == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        // 通配符之前的字面前缀可以缩小到有序集合的一个子集
+        String prefix = literalPrefixOf(glob);
+        Collection<String> candidates = prefix.isEmpty()
+                ? SORTED_FULL_NAMES
+                : SORTED_FULL_NAMES.subSet(prefix, true, prefix + Character.MAX_VALUE, false);
+
+        Pattern pattern = compileGlob(glob);
+        Set<String> results = new LinkedHashSet<>();
+        List<String> matches = new ArrayList<>();
+        for (String fullName : candidates) {
+            if (pattern.matcher(fullName).matches()) {
+                matches.add(fullName);
+            }
+        }
+        collectVisible(jenkins, matches, results, limit);
+        return new ArrayList<>(results);
+    }
+
+    static boolean isGlob(String value) {
+        return value.indexOf('*') >= 0 || value.indexOf('?') >= 0;
+    }
+
+    static Pattern compileGlob(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                regex.append(".*");
+                i++;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static String literalPrefixOf(String glob) {
+        int end = 0;
+        while (end < glob.length() && glob.charAt(end) != '*' && glob.charAt(end) != '?') {
+            end++;
+        }
+        return glob.substring(0, end);
+    }
+
+    private static boolean collectVisible(Jenkins jenkins, Collection<String> fullNames, Set<String> results, int limit) {
+        for (String fullName : fullNames) {
+            if (results.size() >= limit) {
+                return true;
+            }
+            if (!results.contains(fullName) && getVisibleJob(jenkins, fullName) != null) {
+                results.add(fullName);
+            }
+        }
+        return results.size() >= limit;
+    }
+
+    /**
+     * 当前用户不能读取作业时返回 {@code null}；只有 DISCOVER 权限时 getItemByFullName 会抛出异常，这里同样跳过。
+     */
+    static Job<?, ?> getVisibleJob(Jenkins jenkins, String fullName) {
+        try {
+            return jenkins.getItemByFullName(fullName, Job.class);
+        } catch (AccessDeniedException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 查询长度不少于三元组长度时，取出现次数最少的三元组的倒排表作为候选，否则退化为遍历全部作业名。
+     */
+    private static Collection<String> substringCandidates(String query) {
+        if (query.length() < GRAM_LENGTH) {
+            return SORTED_FULL_NAMES;
+        }
+
+        Set<String> smallest = null;
+        for (String gram : gramsOf(query)) {
+            Set<String> posting = GRAMS.get(gram);
+            if (posting == null) {
+                return Collections.emptySet();
+            }
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        return smallest == null ? Collections.emptySet() : List.copyOf(smallest);
+    }
+
+    static Set<String> gramsOf(String value) {
+        String lower = value.toLowerCase(Locale.ROOT);
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= lower.length(); i++) {
+            grams.add(lower.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    public static void rebuild() {
+        Jenkins jenkins = Jenkins.getInstanceOrNull();
+        if (jenkins == null) {
+            return;
+        }
+
+        try (ACLContext ignored = ACL.as2(ACL.SYSTEM2)) {
+            FULL_NAMES.clear();
+            SORTED_FULL_NAMES.clear();
+            GRAMS.clear();
+            for (Job<?, ?> job : jenkins.allItems(Job.class)) {
+                add(job.getFullName());
+            }
+        }
+        loaded = true;
+    }
+
+    static String shortNameOf(String fullName) {
+        return fullName.substring(fullName.lastIndexOf('/') + 1);
+    }
+
+    static void add(String fullName) {
+        FULL_NAMES.compute(shortNameOf(fullName), (k, fullNames) -> {
+            NavigableSet<String> updated = fullNames == null ? new ConcurrentSkipListSet<>() : fullNames;
+            updated.add(fullName);
+            return updated;
+        });
+
+        SORTED_FULL_NAMES.add(fullName);
+        for (String gram : gramsOf(fullName)) {
+            GRAMS.compute(gram, (k, posting) -> {
+                Set<String> updated = posting == null ? ConcurrentHashMap.newKeySet() : posting;
+                updated.add(fullName);
+                return updated;
+            });
+        }
+    }
+
+    static void remove(String fullName) {
+        FULL_NAMES.computeIfPresent(shortNameOf(fullName), (k, fullNames) -> {
+            fullNames.remove(fullName);
+            return fullNames.isEmpty() ? null : fullNames;
+        });
+
+        SORTED_FULL_NAMES.remove(fullName);
+        for (String gram : gramsOf(fullName)) {
+            GRAMS.computeIfPresent(gram, (k, posting) -> {
+                posting.remove(fullName);
+                return posting.isEmpty() ? null : posting;
+            });
+        }
+    }
+
+    static void removeDescendants(String folderFullName) {
+        String prefix = folderFullName + "/";
+        for (String fullName : SORTED_FULL_NAMES) {
+            if (fullName.startsWith(prefix)) {
+                remove(fullName);
+            }
+        }
+    }
+
+    @Extension
+    public static final class ItemListenerImpl extends ItemListener {
+
+        @Override
+        public void onLoaded() {
+            rebuild();
+        }
+
+        @Override
+        public void onCreated(Item item) {
+            if (item instanceof Job) {
+                add(item.getFullName());
+            }
+        }
+
+        @Override
+        public void onCopied(Item src, Item item) {
+            onCreated(item);
+        }
+
+        @Override
+        public void onDeleted(Item item) {
+            if (item instanceof Job) {
+                remove(item.getFullName());
+            }
+            if (item instanceof ItemGroup) {
+                removeDescendants(item.getFullName());
+            }
+        }
+
+        /**
+         * 重命名和移动都会触发此事件，文件夹变更时其下每个作业也会各自收到通知。
+         */
+        @Override
+        public void onLocationChanged(Item item, String oldFullName, String newFullName) {
+            if (item instanceof Job) {
+                remove(oldFullName);
+                add(newFullName);
+            }
+        }
+    }
+}
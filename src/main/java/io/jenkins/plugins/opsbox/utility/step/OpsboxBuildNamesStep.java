@@ -0,0 +1,121 @@
+package io.jenkins.plugins.opsbox.utility.step;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.model.*;
+import io.jenkins.plugins.opsbox.utility.parameter.BuildNameIndex;
+import io.jenkins.plugins.opsbox.utility.parameter.BuildNameSources;
+import io.jenkins.plugins.opsbox.utility.parameter.JobBuildNameParameterDefinition;
+import lombok.Getter;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.*;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 流水线步骤 {@code opsboxBuildNames}：返回上游作业最近构建的显示名称列表。
+ * 与 jobBuildNameParam 使用同一套作业解析、过滤和索引，在步骤线程中执行，不占用 CPS 线程。
+ */
+@Getter
+public class OpsboxBuildNamesStep extends Step {
+
+    private static final int DEFAULT_LIMIT = 5;
+
+    private final String job;
+    private int limit = DEFAULT_LIMIT;
+    private String result = Result.SUCCESS.toString();
+    private int maxAgeDays;
+
+    @DataBoundConstructor
+    public OpsboxBuildNamesStep(String job) {
+        this.job = job;
+    }
+
+    @DataBoundSetter
+    public void setLimit(int limit) {
+        this.limit = limit <= 0 ? DEFAULT_LIMIT : limit;
+    }
+
+    @DataBoundSetter
+    public void setResult(String result) {
+        this.result = result == null || result.isBlank() ? Result.SUCCESS.toString() : result.trim();
+    }
+
+    @DataBoundSetter
+    public void setMaxAgeDays(int maxAgeDays) {
+        this.maxAgeDays = Math.max(maxAgeDays, 0);
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new Execution(this, context);
+    }
+
+    static Result parseResult(String result) throws AbortException {
+        for (Result candidate : new Result[]{Result.SUCCESS, Result.UNSTABLE, Result.FAILURE, Result.NOT_BUILT, Result.ABORTED}) {
+            if (candidate.toString().equals(result.toUpperCase(Locale.ROOT))) {
+                return candidate;
+            }
+        }
+        throw new AbortException(Messages.OpsboxBuildNamesStep_unknownResult(result));
+    }
+
+    private static final class Execution extends SynchronousNonBlockingStepExecution<List<String>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient OpsboxBuildNamesStep step;
+
+        Execution(OpsboxBuildNamesStep step, StepContext context) {
+            super(context);
+            this.step = step;
+        }
+
+        @Override
+        protected List<String> run() throws Exception {
+            Result threshold = parseResult(step.getResult());
+            Run<?, ?> run = getContext().get(Run.class);
+
+            // 与参数一样相对当前作业所在的文件夹解析
+            List<Job<?, ?>> jobs = BuildNameSources.resolve(step.getJob(), run.getParent().getParent());
+            if (jobs.isEmpty()) {
+                throw new AbortException(Messages.OpsboxBuildNamesStep_jobNotExists(step.getJob()));
+            }
+
+            BuildNameIndex.Lookup lookup = BuildNameSources.lookup(jobs, step.getLimit(),
+                    JobBuildNameParameterDefinition.since(step.getMaxAgeDays()), threshold);
+            if (lookup.truncated()) {
+                getContext().get(TaskListener.class).getLogger().println(Messages.OpsboxBuildNamesStep_truncated(step.getJob()));
+            }
+            return new ArrayList<>(lookup.getBuildNames());
+        }
+    }
+
+    @Extension(optional = true)
+    public static class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public String getFunctionName() {
+            return "opsboxBuildNames";
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return Messages.OpsboxBuildNamesStep_DisplayName();
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Set.of(Run.class, TaskListener.class);
+        }
+    }
+}
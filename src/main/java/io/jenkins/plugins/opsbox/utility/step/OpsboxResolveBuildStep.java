@@ -0,0 +1,89 @@
+package io.jenkins.plugins.opsbox.utility.step;
+
+import hudson.AbortException;
+import hudson.Extension;
+import hudson.model.*;
+import io.jenkins.plugins.opsbox.utility.parameter.BuildNameSources;
+import io.jenkins.plugins.opsbox.utility.parameter.DisplayNameIndex;
+import lombok.Getter;
+import org.jenkinsci.plugins.workflow.steps.Step;
+import org.jenkinsci.plugins.workflow.steps.StepContext;
+import org.jenkinsci.plugins.workflow.steps.StepDescriptor;
+import org.jenkinsci.plugins.workflow.steps.StepExecution;
+import org.jenkinsci.plugins.workflow.steps.SynchronousNonBlockingStepExecution;
+import org.kohsuke.stapler.*;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 流水线步骤 {@code opsboxResolveBuild}：按显示名称解析上游作业的构建，返回构建号。
+ * 通过显示名称到构建号的索引查找，耗时与构建历史长度无关。
+ */
+@Getter
+public class OpsboxResolveBuildStep extends Step {
+
+    private final String job;
+    private final String name;
+
+    @DataBoundConstructor
+    public OpsboxResolveBuildStep(String job, String name) {
+        this.job = job;
+        this.name = name;
+    }
+
+    @Override
+    public StepExecution start(StepContext context) {
+        return new Execution(this, context);
+    }
+
+    private static final class Execution extends SynchronousNonBlockingStepExecution<Integer> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient OpsboxResolveBuildStep step;
+
+        Execution(OpsboxResolveBuildStep step, StepContext context) {
+            super(context);
+            this.step = step;
+        }
+
+        @Override
+        protected Integer run() throws Exception {
+            Run<?, ?> run = getContext().get(Run.class);
+
+            // 与参数一样相对当前作业所在的文件夹解析
+            List<Job<?, ?>> jobs = BuildNameSources.resolve(step.getJob(), run.getParent().getParent());
+            if (jobs.isEmpty()) {
+                throw new AbortException(Messages.OpsboxResolveBuildStep_jobNotExists(step.getJob()));
+            }
+
+            Run<?, ?> build = DisplayNameIndex.resolve(jobs, step.getName());
+            if (build == null) {
+                throw new AbortException(Messages.OpsboxResolveBuildStep_buildNotFound(step.getName(), step.getJob()));
+            }
+            return build.getNumber();
+        }
+    }
+
+    @Extension(optional = true)
+    public static class DescriptorImpl extends StepDescriptor {
+
+        @Override
+        public String getFunctionName() {
+            return "opsboxResolveBuild";
+        }
+
+        @Nonnull
+        @Override
+        public String getDisplayName() {
+            return Messages.OpsboxResolveBuildStep_DisplayName();
+        }
+
+        @Override
+        public Set<? extends Class<?>> getRequiredContext() {
+            return Set.of(Run.class);
+        }
+    }
+}
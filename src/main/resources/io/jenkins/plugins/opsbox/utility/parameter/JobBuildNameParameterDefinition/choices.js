@@ -0,0 +1,59 @@
+Behaviour.specify("select.opsbox-job-build-name", "opsbox-job-build-name", 0, function (select) {
+    var url = select.dataset.choicesUrl;
+    if (!url) {
+        return;
+    }
+
+    var pageSize = parseInt(select.dataset.pageSize, 10) || 5;
+    var defaultValue = select.dataset.defaultValue;
+    var parameter = select.closest("[name='parameter']");
+    var moreButton = parameter.querySelector(".opsbox-job-build-name__more");
+    var truncatedNote = parameter.querySelector(".opsbox-job-build-name__truncated");
+    var offset = 0;
+
+    function load() {
+        var params = new URLSearchParams({
+            jobName: select.dataset.jobName || "",
+            offset: offset,
+            limit: pageSize,
+            maxAgeDays: select.dataset.maxAgeDays || 0
+        });
+
+        return fetch(url + "?" + params.toString())
+            .then(function (rsp) {
+                if (!rsp.ok) {
+                    throw new Error(rsp.statusText);
+                }
+                return rsp.json();
+            })
+            .then(function (json) {
+                var data = json.data || json;
+                if (offset === 0) {
+                    select.options.length = 0;
+                }
+                data.choices.forEach(function (value) {
+                    var option = new Option(value, value);
+                    if (offset === 0 && value === defaultValue) {
+                        option.selected = true;
+                    }
+                    select.add(option);
+                });
+                offset += data.choices.length;
+                moreButton.hidden = !data.hasMore;
+                truncatedNote.hidden = !data.truncated;
+            })
+            .catch(function (e) {
+                // 加载失败时保留服务端渲染的默认选项
+                console.warn("Failed to load build names for " + select.dataset.jobName, e);
+            });
+    }
+
+    moreButton.addEventListener("click", function () {
+        moreButton.disabled = true;
+        load().finally(function () {
+            moreButton.disabled = false;
+        });
+    });
+
+    load();
+});
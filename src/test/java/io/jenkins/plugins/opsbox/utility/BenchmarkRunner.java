@@ -0,0 +1,52 @@
+package io.jenkins.plugins.opsbox.utility;
+
+import jenkins.benchmark.jmh.BenchmarkFinder;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH 基准测试入口，只在 benchmark 配置下运行：
+ * {@code mvn test -Pbenchmark -Dopsbox.benchmark.jobs=2000 -Dopsbox.benchmark.builds=500}
+ * 吞吐量和 GC 分析器统计的分配速率（{@code gc.alloc.rate.norm}）写入 target/jmh-report.json。
+ */
+public class BenchmarkRunner {
+
+    @Test
+    public void runJmhBenchmarks() throws Exception {
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.SECONDS)
+                .warmupIterations(Integer.getInteger("opsbox.benchmark.warmupIterations", 3))
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(Integer.getInteger("opsbox.benchmark.iterations", 5))
+                .measurementTime(TimeValue.seconds(2))
+                .forks(1)
+                .threads(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(true)
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-report.json");
+
+        // 历史规模可以通过系统属性覆盖 @Param 的默认值
+        String jobs = System.getProperty("opsbox.benchmark.jobs");
+        if (jobs != null) {
+            options.param("jobCount", jobs.split(","));
+        }
+        String builds = System.getProperty("opsbox.benchmark.builds");
+        if (builds != null) {
+            options.param("buildCount", builds.split(","));
+        }
+
+        new BenchmarkFinder(getClass()).findBenchmarks(options);
+        new Runner(options.build()).run();
+    }
+}
@@ -1,8 +1,21 @@
 package io.jenkins.plugins.opsbox.utility;
 
 import io.jenkins.plugins.opsbox.utility.contributor.ListGitBranchesEnvironmentContributorTest;
+import io.jenkins.plugins.opsbox.utility.contributor.RefNormalizerTest;
+import io.jenkins.plugins.opsbox.utility.contributor.RemoteRefCacheTest;
 import io.jenkins.plugins.opsbox.utility.integration.PluginIntegrationTest;
+import io.jenkins.plugins.opsbox.utility.metrics.OpsboxMetricsTest;
+import io.jenkins.plugins.opsbox.utility.parameter.BuildNameIndexTest;
+import io.jenkins.plugins.opsbox.utility.parameter.BuildNameSourcesTest;
+import io.jenkins.plugins.opsbox.utility.parameter.BuildSummaryFileTest;
+import io.jenkins.plugins.opsbox.utility.parameter.ChoicesBatchActionTest;
+import io.jenkins.plugins.opsbox.utility.parameter.ChoicesWarmupTest;
+import io.jenkins.plugins.opsbox.utility.parameter.DisplayNameIndexTest;
 import io.jenkins.plugins.opsbox.utility.parameter.JobBuildNameParameterDefinitionTest;
+import io.jenkins.plugins.opsbox.utility.parameter.JobBuildNameParameterValueTest;
+import io.jenkins.plugins.opsbox.utility.parameter.JobNameIndexTest;
+import io.jenkins.plugins.opsbox.utility.step.OpsboxBuildNamesStepTest;
+import io.jenkins.plugins.opsbox.utility.step.OpsboxResolveBuildStepTest;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
@@ -13,7 +26,20 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
     JobBuildNameParameterDefinitionTest.class,
+    JobBuildNameParameterValueTest.class,
+    BuildNameIndexTest.class,
+    BuildNameSourcesTest.class,
+    BuildSummaryFileTest.class,
+    ChoicesBatchActionTest.class,
+    ChoicesWarmupTest.class,
+    DisplayNameIndexTest.class,
+    JobNameIndexTest.class,
     ListGitBranchesEnvironmentContributorTest.class,
+    RefNormalizerTest.class,
+    RemoteRefCacheTest.class,
+    OpsboxMetricsTest.class,
+    OpsboxBuildNamesStepTest.class,
+    OpsboxResolveBuildStepTest.class,
     PluginIntegrationTest.class
 })
 public class OpsboxUtilityPluginTestSuite {
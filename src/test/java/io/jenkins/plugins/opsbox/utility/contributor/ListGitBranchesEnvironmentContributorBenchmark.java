@@ -0,0 +1,91 @@
+package io.jenkins.plugins.opsbox.utility.contributor;
+
+import com.syhuang.hudson.plugins.listgitbranchesparameter.ListGitBranchesParameterDefinition;
+import com.syhuang.hudson.plugins.listgitbranchesparameter.ListGitBranchesParameterValue;
+import hudson.EnvVars;
+import hudson.model.*;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * 环境变量贡献器的基准测试，模拟流水线中每个步骤都会触发的 buildEnvironmentFor 调用。
+ * 与单元测试一样使用模拟对象，不需要启动 Jenkins。
+ */
+@JmhBenchmark
+public class ListGitBranchesEnvironmentContributorBenchmark {
+
+    private static final String[] REFS = {
+        "refs/heads/master", "refs/heads/feature/very/long/branch-name", "refs/tags/v1.2.3", "develop"
+    };
+
+    @State(Scope.Benchmark)
+    public static class ContributorState {
+
+        ListGitBranchesEnvironmentContributor contributor;
+        Run<?, ?> run;
+        TaskListener listener;
+
+        @Setup
+        public void setup() {
+            contributor = new ListGitBranchesEnvironmentContributor();
+            listener = TaskListener.NULL;
+
+            Job<?, ?> job = mock(Job.class);
+            Run<?, ?> build = mock(Run.class);
+            doReturn(job).when(build).getParent();
+
+            List<ParameterValue> values = new ArrayList<>();
+            List<ParameterDefinition> definitions = new ArrayList<>();
+            for (int i = 0; i < REFS.length; i++) {
+                ListGitBranchesParameterValue value = mock(ListGitBranchesParameterValue.class);
+                when(value.getName()).thenReturn("BRANCH_" + i);
+                when(value.getValue()).thenReturn(REFS[i]);
+                values.add(value);
+
+                ListGitBranchesParameterDefinition definition = mock(ListGitBranchesParameterDefinition.class);
+                when(definition.getName()).thenReturn("BRANCH_" + i);
+                when(definition.getRemoteURL()).thenReturn("https://git.example.com/team/repo-" + i + ".git");
+                when(definition.getCredentialsId()).thenReturn("git-credentials");
+                definitions.add(definition);
+            }
+            // 混入其他类型的参数
+            for (int i = 0; i < 8; i++) {
+                values.add(new StringParameterValue("STRING_" + i, "value-" + i));
+                definitions.add(new StringParameterDefinition("STRING_" + i, "value-" + i, null));
+            }
+
+            ParametersAction parametersAction = mock(ParametersAction.class);
+            when(parametersAction.getParameters()).thenReturn(values);
+            doReturn(parametersAction).when(build).getAction(ParametersAction.class);
+
+            ParametersDefinitionProperty property = mock(ParametersDefinitionProperty.class);
+            when(property.getParameterDefinitions()).thenReturn(definitions);
+            doReturn(property).when(job).getProperty(ParametersDefinitionProperty.class);
+
+            run = build;
+        }
+    }
+
+    @Benchmark
+    public void buildEnvironmentFor(ContributorState state, Blackhole blackhole) {
+        EnvVars envVars = new EnvVars();
+        state.contributor.buildEnvironmentFor(state.run, envVars, state.listener);
+        blackhole.consume(envVars);
+    }
+
+    @Benchmark
+    public void cleanBranchName(Blackhole blackhole) {
+        for (String ref : REFS) {
+            blackhole.consume(ListGitBranchesEnvironmentContributor.cleanBranchName(ref));
+        }
+    }
+}
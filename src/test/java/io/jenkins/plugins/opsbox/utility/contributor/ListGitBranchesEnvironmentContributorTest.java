@@ -4,15 +4,25 @@ import com.syhuang.hudson.plugins.listgitbranchesparameter.ListGitBranchesParame
 import com.syhuang.hudson.plugins.listgitbranchesparameter.ListGitBranchesParameterValue;
 import hudson.EnvVars;
 import hudson.model.*;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import io.jenkins.plugins.opsbox.utility.parameter.JobBuildNameParameterDefinition;
+import io.jenkins.plugins.opsbox.utility.parameter.JobBuildNameParameterValue;
+import jenkins.model.Jenkins;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -22,6 +32,9 @@ public class ListGitBranchesEnvironmentContributorTest {
     @Rule
     public JenkinsRule jenkins = new JenkinsRule();
 
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
     @Mock
     private AbstractBuild mockBuild;
 
@@ -61,6 +74,9 @@ public class ListGitBranchesEnvironmentContributorTest {
 
         // 测试边界情况
         assertEquals("", ListGitBranchesEnvironmentContributor.cleanBranchName(""));
+        // {PARAM} 保持原有的值，其他引用不改写
+        assertEquals("refs/pull/7/head", ListGitBranchesEnvironmentContributor.cleanBranchName("refs/pull/7/head"));
+        assertEquals("origin/main", ListGitBranchesEnvironmentContributor.cleanBranchName("origin/main"));
         assertNull(ListGitBranchesEnvironmentContributor.cleanBranchName(null));
     }
 
@@ -251,6 +267,8 @@ public class ListGitBranchesEnvironmentContributorTest {
 
         // 验证标签名称被正确清理
         assertEquals("v1.0.0", envVars.get("TAG"));
+        assertEquals("v1.0.0", envVars.get("PARAMS__TAG__NAME"));
+        assertEquals("tag", envVars.get("PARAMS__TAG__REF_TYPE"));
         assertEquals("https://github.com/test/repo.git", envVars.get("PARAMS__TAG__REMOTE_URL"));
         assertEquals("git-credentials", envVars.get("PARAMS__TAG__CREDENTIALS_ID"));
     }
@@ -287,6 +305,207 @@ public class ListGitBranchesEnvironmentContributorTest {
         assertNull(envVars.get("PARAMS__BRANCH__CREDENTIALS_ID")); // 应该是null
     }
 
+    @Test
+    public void testParametersConfigsAreCachedPerJob() {
+        when(mockBuild.getParent()).thenReturn(mockJob);
+        when(mockBuild.getAction(ParametersAction.class)).thenReturn(null);
+
+        List<ParameterDefinition> paramDefs = new ArrayList<>();
+        ListGitBranchesParameterDefinition gitParamDef = mock(ListGitBranchesParameterDefinition.class);
+        when(gitParamDef.getName()).thenReturn("BRANCH");
+        when(gitParamDef.getRemoteURL()).thenReturn("https://github.com/test/repo.git");
+        paramDefs.add(gitParamDef);
+
+        when(mockJob.getProperty(ParametersDefinitionProperty.class)).thenReturn(mockParamProp);
+        when(mockParamProp.getParameterDefinitions()).thenReturn(paramDefs);
+
+        contributor.buildEnvironmentFor((Run)mockBuild, envVars, mockListener);
+        contributor.buildEnvironmentFor((Run)mockBuild, new EnvVars(), mockListener);
+        assertEquals("https://github.com/test/repo.git", envVars.get("PARAMS__BRANCH__REMOTE_URL"));
+
+        // 第二次调用直接使用缓存
+        verify(mockParamProp, times(1)).getParameterDefinitions();
+
+        // 失效后，新的构建会重新计算
+        ParametersConfigCache.invalidate(mockJob);
+        AbstractBuild otherBuild = mock(AbstractBuild.class);
+        when(otherBuild.getParent()).thenReturn(mockJob);
+        contributor.buildEnvironmentFor((Run)otherBuild, new EnvVars(), mockListener);
+        verify(mockParamProp, times(2)).getParameterDefinitions();
+    }
+
+    @Test
+    public void testContributedEnvironmentIsMemoizedPerRun() {
+        when(mockBuild.getParent()).thenReturn(mockJob);
+        when(mockBuild.getAction(ParametersAction.class)).thenReturn(mockParametersAction);
+
+        List<ParameterValue> paramValues = new ArrayList<>();
+        ListGitBranchesParameterValue gitParam = mock(ListGitBranchesParameterValue.class);
+        when(gitParam.getName()).thenReturn("BRANCH");
+        when(gitParam.getValue()).thenReturn("refs/heads/master");
+        paramValues.add(gitParam);
+        when(mockParametersAction.getParameters()).thenReturn(paramValues);
+        when(mockJob.getProperty(ParametersDefinitionProperty.class)).thenReturn(null);
+
+        for (int i = 0; i < 3; i++) {
+            EnvVars env = new EnvVars();
+            contributor.buildEnvironmentFor((Run)mockBuild, env, mockListener);
+            assertEquals("master", env.get("BRANCH"));
+        }
+
+        // 同一个构建只计算一次
+        verify(mockBuild, times(1)).getAction(ParametersAction.class);
+    }
+
+    @Test
+    public void testParametersConfigCacheInvalidatedOnSave() throws Exception {
+        FreeStyleProject project = jenkins.createFreeStyleProject("config-cache");
+        when(mockBuild.getParent()).thenReturn(project);
+        when(mockBuild.getAction(ParametersAction.class)).thenReturn(null);
+
+        ParametersConfigCache.clear();
+        contributor.buildEnvironmentFor((Run)mockBuild, envVars, mockListener);
+        assertTrue(envVars.isEmpty());
+        // 没有 Git 参数的作业也会被缓存
+        assertEquals(1, ParametersConfigCache.size());
+
+        project.save();
+        assertEquals(0, ParametersConfigCache.size());
+    }
+
+    @Test
+    public void testUpstreamBuildMetadataIsExported() throws Exception {
+        FreeStyleProject upstream = jenkins.createFreeStyleProject("upstream");
+        jenkins.buildAndAssertSuccess(upstream).setDisplayName("1.0.0");
+        jenkins.buildAndAssertSuccess(upstream).setDisplayName("1.0.1");
+        Run<?, ?> selected = upstream.getBuildByNumber(1);
+
+        JobBuildNameParameterDefinition definition = new JobBuildNameParameterDefinition("BUILD_NAME", "upstream", null);
+        FreeStyleProject downstream = jenkins.createFreeStyleProject("downstream");
+        downstream.addProperty(new ParametersDefinitionProperty(definition));
+
+        // 记录了构建号的参数值
+        FreeStyleBuild build = jenkins.assertBuildStatusSuccess(downstream.scheduleBuild2(0,
+                new ParametersAction(definition.createValue("1.0.0"))));
+        EnvVars env = build.getEnvironment(TaskListener.NULL);
+        assertEquals("1.0.0", env.get("BUILD_NAME"));
+        assertEquals("upstream", env.get("PARAMS__BUILD_NAME__JOB_NAME"));
+        assertEquals("1", env.get("PARAMS__BUILD_NAME__BUILD_NUMBER"));
+        assertEquals(String.valueOf(selected.getTimeInMillis()), env.get("PARAMS__BUILD_NAME__TIMESTAMP"));
+        assertEquals("SUCCESS", env.get("PARAMS__BUILD_NAME__RESULT"));
+        assertEquals(jenkins.getURL() + selected.getUrl(), env.get("PARAMS__BUILD_NAME__BUILD_URL"));
+        assertEquals(selected.getArtifactsDir().getAbsolutePath(), env.get("PARAMS__BUILD_NAME__ARTIFACTS_DIR"));
+
+        // 只有名称的参数值通过显示名称索引查找
+        build = jenkins.assertBuildStatusSuccess(downstream.scheduleBuild2(0,
+                new ParametersAction(new JobBuildNameParameterValue("BUILD_NAME", "1.0.1", null))));
+        assertEquals("2", build.getEnvironment(TaskListener.NULL).get("PARAMS__BUILD_NAME__BUILD_NUMBER"));
+
+        // 此前记录为普通字符串值的参数同样导出
+        build = jenkins.assertBuildStatusSuccess(downstream.scheduleBuild2(0,
+                new ParametersAction(new StringParameterValue("BUILD_NAME", "1.0.0"))));
+        assertEquals("1", build.getEnvironment(TaskListener.NULL).get("PARAMS__BUILD_NAME__BUILD_NUMBER"));
+
+        // 其他字符串参数不导出构建信息
+        FreeStyleProject other = jenkins.createFreeStyleProject("other");
+        other.addProperty(new ParametersDefinitionProperty(new StringParameterDefinition("BUILD_NAME", "1.0.0")));
+        build = jenkins.buildAndAssertSuccess(other);
+        assertNull(build.getEnvironment(TaskListener.NULL).get("PARAMS__BUILD_NAME__BUILD_NUMBER"));
+    }
+
+    @Test
+    public void testUpstreamBuildIsResolvedIndependentlyOfCaller() throws Exception {
+        FreeStyleProject upstream = jenkins.createFreeStyleProject("upstream");
+        jenkins.buildAndAssertSuccess(upstream).setDisplayName("1.0.0");
+
+        JobBuildNameParameterDefinition definition = new JobBuildNameParameterDefinition("BUILD_NAME", "upstream", null);
+        FreeStyleProject downstream = jenkins.createFreeStyleProject("downstream");
+        downstream.addProperty(new ParametersDefinitionProperty(definition));
+        FreeStyleBuild build = jenkins.assertBuildStatusSuccess(downstream.scheduleBuild2(0,
+                new ParametersAction(new StringParameterValue("BUILD_NAME", "1.0.0"))));
+
+        jenkins.jenkins.setSecurityRealm(jenkins.createDummySecurityRealm());
+        jenkins.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+                .grant(Jenkins.READ).everywhere().to("reader")
+                .grant(Item.READ).onItems(downstream).to("reader")
+                .grant(Item.DISCOVER).onItems(upstream).to("reader"));
+
+        // 只能发现上游作业的调用方同样取得环境变量，不会抛出 AccessDeniedException
+        ListGitBranchesEnvironmentContributor.clear();
+        try (ACLContext ignored = ACL.as2(User.getById("reader", true).impersonate2())) {
+            assertEquals("1", build.getEnvironment(TaskListener.NULL).get("PARAMS__BUILD_NAME__BUILD_NUMBER"));
+        }
+    }
+
+    @Test
+    public void testResolveRef() {
+        Map<String, String> refs = Map.of(
+            "refs/heads/main", "1111111111111111111111111111111111111111",
+            "refs/tags/v1.0.0", "2222222222222222222222222222222222222222",
+            "refs/tags/v1.0.0^{}", "3333333333333333333333333333333333333333",
+            "refs/pull/7/head", "4444444444444444444444444444444444444444");
+
+        assertEquals(new ListGitBranchesEnvironmentContributor.ResolvedRef("refs/heads/main",
+            "1111111111111111111111111111111111111111"), ListGitBranchesEnvironmentContributor.resolveRef(refs, "main"));
+        assertEquals("refs/heads/main", ListGitBranchesEnvironmentContributor.resolveRef(refs, "origin/main").ref());
+        // 附注标签取其指向的提交
+        assertEquals("3333333333333333333333333333333333333333",
+            ListGitBranchesEnvironmentContributor.resolveRef(refs, "refs/tags/v1.0.0").commit());
+        assertEquals("refs/tags/v1.0.0", ListGitBranchesEnvironmentContributor.resolveRef(refs, "v1.0.0").ref());
+        assertEquals("refs/pull/7/head", ListGitBranchesEnvironmentContributor.resolveRef(refs, "refs/pull/7/head").ref());
+        assertNull(ListGitBranchesEnvironmentContributor.resolveRef(refs, "missing"));
+    }
+
+    @Test
+    public void testCommitIsResolvedOnceWhileBuilding() throws Exception {
+        File dir = tmp.newFolder("repo");
+        String commit;
+        try (org.eclipse.jgit.api.Git repo = org.eclipse.jgit.api.Git.init().setDirectory(dir).setInitialBranch("main").call()) {
+            commit = repo.commit().setMessage("initial").setAllowEmpty(true)
+                .setAuthor("test", "test@example.com").setCommitter("test", "test@example.com").call().getName();
+        }
+        RemoteRefCache.GIT_TOOL = "jgit";
+        RemoteRefCache.clear();
+        ParametersConfigCache.clear();
+
+        when(mockBuild.getParent()).thenReturn(mockJob);
+        when(mockBuild.isBuilding()).thenReturn(true);
+        when(mockBuild.getAction(ParametersAction.class)).thenReturn(mockParametersAction);
+
+        ListGitBranchesParameterValue gitParam = mock(ListGitBranchesParameterValue.class);
+        when(gitParam.getName()).thenReturn("BRANCH");
+        when(gitParam.getValue()).thenReturn("refs/heads/main");
+        when(mockParametersAction.getParameters()).thenReturn(List.of(gitParam));
+
+        ListGitBranchesParameterDefinition gitParamDef = mock(ListGitBranchesParameterDefinition.class);
+        when(gitParamDef.getName()).thenReturn("BRANCH");
+        when(gitParamDef.getRemoteURL()).thenReturn(dir.toURI().toString());
+        when(mockJob.getProperty(ParametersDefinitionProperty.class)).thenReturn(mockParamProp);
+        when(mockParamProp.getParameterDefinitions()).thenReturn(List.of(gitParamDef));
+
+        // 构建开始前计算环境变量不访问远程仓库，也不缓存未完成的结果
+        long cached = ListGitBranchesEnvironmentContributor.getCachedRunCount();
+        contributor.buildEnvironmentFor((Run)mockBuild, envVars, mockListener);
+        assertNull(envVars.get("PARAMS__BRANCH__COMMIT"));
+        assertEquals(cached, ListGitBranchesEnvironmentContributor.getCachedRunCount());
+
+        ArgumentCaptor<ResolvedCommitsAction> action = ArgumentCaptor.forClass(ResolvedCommitsAction.class);
+        try {
+            new ListGitBranchesEnvironmentContributor.CommitResolver().onStarted((Run)mockBuild, mockListener);
+        } finally {
+            RemoteRefCache.GIT_TOOL = null;
+        }
+        // 解析结果记录在构建中
+        verify(mockBuild).addOrReplaceAction(action.capture());
+        when(mockBuild.getAction(ResolvedCommitsAction.class)).thenReturn(action.getValue());
+
+        envVars = new EnvVars();
+        contributor.buildEnvironmentFor((Run)mockBuild, envVars, mockListener);
+        assertEquals("main", envVars.get("BRANCH"));
+        assertEquals("refs/heads/main", envVars.get("PARAMS__BRANCH__REF"));
+        assertEquals(commit, envVars.get("PARAMS__BRANCH__COMMIT"));
+    }
+
     @Test
     public void testBuildEnvironmentForIntegration() throws Exception {
         // 简化的集成测试 - 由于ListGitBranchesParameterDefinition构造器参数复杂，
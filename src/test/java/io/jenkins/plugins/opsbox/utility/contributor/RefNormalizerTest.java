@@ -0,0 +1,67 @@
+package io.jenkins.plugins.opsbox.utility.contributor;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RefNormalizerTest {
+
+    private final RefNormalizer normalizer = RefNormalizer.getDefault();
+
+    @Test
+    public void testBranchAndTagPrefixes() {
+        assertEquals("master", normalizer.normalize("refs/heads/master"));
+        assertEquals("feature/test", normalizer.normalize("refs/heads/feature/test"));
+        assertEquals("v1.0.0", normalizer.normalize("refs/tags/v1.0.0"));
+        assertEquals("develop", normalizer.normalize("refs/remotes/origin/develop"));
+        assertEquals("develop", normalizer.normalize("origin/develop"));
+
+        assertEquals(RefNormalizer.RefType.BRANCH, normalizer.match("refs/heads/master").getType());
+        assertEquals(RefNormalizer.RefType.TAG, normalizer.match("refs/tags/v1.0.0").getType());
+    }
+
+    @Test
+    public void testPrefixIsOnlyStrippedAtStart() {
+        // 以前的实现使用 String.replace，会把中间出现的前缀也删掉
+        assertEquals("feature/refs/heads/x", normalizer.normalize("refs/heads/feature/refs/heads/x"));
+        assertEquals("release/refs/tags/x", normalizer.normalize("release/refs/tags/x"));
+        assertNull(normalizer.match("release/refs/tags/x"));
+    }
+
+    @Test
+    public void testPullAndMergeRequests() {
+        assertEquals("PR-42", normalizer.normalize("refs/pull/42/head"));
+        assertEquals("PR-42", normalizer.normalize("refs/pull/42/merge"));
+        assertEquals("MR-7", normalizer.normalize("refs/merge-requests/7/head"));
+        assertEquals(RefNormalizer.RefType.PR, normalizer.match("refs/pull/42/head").getType());
+        assertEquals("pr", normalizer.match("refs/merge-requests/7/merge").getType().getLabel());
+
+        // 不完整的引用保持原样
+        assertEquals("refs/pull/42", normalizer.normalize("refs/pull/42"));
+        assertEquals("refs/pull//head", normalizer.normalize("refs/pull//head"));
+    }
+
+    @Test
+    public void testUnmatchedAndEmptyValues() {
+        assertEquals("master", normalizer.normalize("master"));
+        assertEquals("refs/heads/", normalizer.normalize("refs/heads/"));
+        assertEquals("", normalizer.normalize(""));
+        assertNull(normalizer.normalize(null));
+    }
+
+    @Test
+    public void testConfiguredRules() {
+        List<RefNormalizer.Rule> rules = RefNormalizer.withConfiguredRules(RefNormalizer.DEFAULT_RULES,
+            "refs/changes/*/=pr:CR-*, refs/heads/release/=tag, invalid, refs/x/=unknown");
+        RefNormalizer custom = new RefNormalizer(rules);
+
+        assertEquals("CR-12", custom.normalize("refs/changes/12/34"));
+        // 更长的前缀优先
+        assertEquals("1.0", custom.normalize("refs/heads/release/1.0"));
+        assertEquals(RefNormalizer.RefType.TAG, custom.match("refs/heads/release/1.0").getType());
+        assertEquals(RefNormalizer.RefType.BRANCH, custom.match("refs/heads/main").getType());
+        assertEquals("refs/x/y", custom.normalize("refs/x/y"));
+    }
+}
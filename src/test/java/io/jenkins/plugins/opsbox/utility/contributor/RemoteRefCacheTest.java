@@ -0,0 +1,141 @@
+package io.jenkins.plugins.opsbox.utility.contributor;
+
+import io.jenkins.plugins.opsbox.utility.metrics.OpsboxMetrics;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class RemoteRefCacheTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private org.eclipse.jgit.api.Git repo;
+    private String remoteUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        // 使用 JGit，不依赖命令行 git
+        RemoteRefCache.GIT_TOOL = "jgit";
+        RemoteRefCache.TTL_SECONDS = 60;
+        RemoteRefCache.clear();
+        OpsboxMetrics.reset();
+
+        File dir = tmp.newFolder("repo");
+        repo = org.eclipse.jgit.api.Git.init().setDirectory(dir).setInitialBranch("main").call();
+        commit("initial");
+        remoteUrl = dir.toURI().toString();
+    }
+
+    @After
+    public void tearDown() {
+        repo.close();
+        RemoteRefCache.GIT_TOOL = null;
+        RemoteRefCache.TTL_SECONDS = 60;
+    }
+
+    private String commit(String message) throws Exception {
+        RevCommit commit = repo.commit().setMessage(message).setAllowEmpty(true)
+                .setAuthor("test", "test@example.com").setCommitter("test", "test@example.com").call();
+        return commit.getName();
+    }
+
+    @Test
+    public void testRefsAreCachedWithinTtl() throws Exception {
+        String first = RemoteRefCache.getRefs(null, remoteUrl, null).get("refs/heads/main");
+        assertNotNull(first);
+
+        commit("second");
+        assertEquals(first, RemoteRefCache.getRefs(null, remoteUrl, null).get("refs/heads/main"));
+        assertEquals(1, OpsboxMetrics.REFS_HIT.sum());
+    }
+
+    @Test
+    public void testStaleRefsAreServedWhileRevalidating() throws Exception {
+        String first = RemoteRefCache.getRefs(null, remoteUrl, null).get("refs/heads/main");
+        String second = commit("second");
+
+        RemoteRefCache.TTL_SECONDS = 0;
+        Thread.sleep(5);
+        // 过期后先返回旧结果，后台刷新完成后返回新结果
+        assertEquals(first, RemoteRefCache.getRefs(null, remoteUrl, null).get("refs/heads/main"));
+        assertEquals(1, OpsboxMetrics.REFS_STALE.sum());
+
+        RemoteRefCache.TTL_SECONDS = 60;
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!second.equals(RemoteRefCache.getRefs(null, remoteUrl, null).get("refs/heads/main"))) {
+            assertTrue("refs were not refreshed", System.currentTimeMillis() < deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    public void testFreshRefsIgnoreStaleEntries() throws Exception {
+        RemoteRefCache.getRefs(null, remoteUrl, null);
+        String second = commit("second");
+
+        RemoteRefCache.TTL_SECONDS = 0;
+        Thread.sleep(5);
+        // 记录提交时不使用过期的结果，同步重新获取
+        RemoteRefCache.Key key = RemoteRefCache.Key.of(remoteUrl, null);
+        assertEquals(second, RemoteRefCache.getFreshRefs(null, List.of(key)).get(key).get("refs/heads/main"));
+        assertEquals(0, OpsboxMetrics.REFS_STALE.sum());
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneFetch() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<Map<String, String>>> calls = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                calls.add(() -> RemoteRefCache.getRefs(null, remoteUrl, null));
+            }
+            for (Future<Map<String, String>> future : pool.invokeAll(calls)) {
+                assertNotNull(future.get().get("refs/heads/main"));
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(1, OpsboxMetrics.REFS_FETCH_TIME.getCount());
+    }
+
+    @Test
+    public void testSnapshotSurvivesRestart() throws Exception {
+        Map<String, String> refs = RemoteRefCache.getRefs(null, remoteUrl, null);
+        RemoteRefCache.saveSnapshot();
+        assertTrue(RemoteRefCache.snapshotFile().isFile());
+
+        RemoteRefCache.clear();
+        RemoteRefCache.loadSnapshot();
+        assertEquals(1, RemoteRefCache.size());
+
+        OpsboxMetrics.reset();
+        assertEquals(refs, RemoteRefCache.getRefs(null, remoteUrl, null));
+        assertEquals(0, OpsboxMetrics.REFS_FETCH_TIME.getCount());
+    }
+
+    @Test
+    public void testUnknownCredentialsAreNotServed() throws Exception {
+        assertNotNull(RemoteRefCache.getRefs(null, remoteUrl, null));
+        assertNull(RemoteRefCache.getRefs(null, remoteUrl, "missing-credentials"));
+    }
+}
@@ -0,0 +1,69 @@
+package io.jenkins.plugins.opsbox.utility.metrics;
+
+import hudson.model.*;
+import io.jenkins.plugins.opsbox.utility.parameter.BuildNameIndex;
+import io.jenkins.plugins.opsbox.utility.parameter.JobBuildNameParameterDefinition;
+import net.sf.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.junit.Assert.*;
+
+public class OpsboxMetricsTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @Before
+    public void setUp() {
+        BuildNameIndex.clear();
+        OpsboxMetrics.reset();
+    }
+
+    @Test
+    public void testChoicesAreRecorded() throws Exception {
+        FreeStyleProject sourceJob = jenkins.createFreeStyleProject("metrics-source");
+        jenkins.buildAndAssertSuccess(sourceJob).setDisplayName("1.0.0");
+
+        JobBuildNameParameterDefinition param = new JobBuildNameParameterDefinition("BUILD_NAME", "metrics-source", null);
+        param.getChoices();
+        param.getChoices();
+
+        assertEquals(2, OpsboxMetrics.CHOICES_TIME.getCount());
+        assertEquals(2, OpsboxMetrics.FIND_FULL_NAME.sum());
+        // 第一次未命中索引并扫描构建历史，第二次命中
+        assertEquals(1, OpsboxMetrics.CHOICES_INDEX_MISS.sum());
+        assertEquals(1, OpsboxMetrics.CHOICES_INDEX_HIT.sum());
+        assertEquals(1, OpsboxMetrics.getSlowestJobs().size());
+        assertEquals("metrics-source", OpsboxMetrics.getSlowestJobs().get(0).getKey());
+
+        new JobBuildNameParameterDefinition("BUILD_NAME", "missing", null).getChoices();
+        assertEquals(1, OpsboxMetrics.FIND_MISS.sum());
+    }
+
+    @Test
+    public void testMetricsEndpoint() throws Exception {
+        new JobBuildNameParameterDefinition("BUILD_NAME", "missing", null).getChoices();
+
+        JSONObject json = jenkins.getJSON("opsbox-metrics/").getJSONObject().getJSONObject("data");
+        assertEquals(1, json.getJSONObject("stats").getJSONObject("choices.time").getLong("count"));
+        assertEquals(1, json.getJSONObject("counters").getLong("find.miss"));
+        assertTrue(json.getJSONObject("gauges").has("choices.index.jobs"));
+    }
+
+    @Test
+    public void testStatPercentile() {
+        Stat stat = new Stat(false);
+        for (int i = 1; i <= 100; i++) {
+            stat.record(i);
+        }
+
+        assertEquals(100, stat.getCount());
+        assertEquals(100, stat.getMax());
+        assertEquals(50.5, stat.getMean(), 0.001);
+        // 分位数按 2 的幂分桶估算，返回所在桶的上界
+        assertTrue(stat.getPercentile(0.5) >= 50 && stat.getPercentile(0.5) < 64);
+    }
+}
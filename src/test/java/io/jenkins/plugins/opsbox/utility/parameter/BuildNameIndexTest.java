@@ -0,0 +1,248 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import hudson.model.*;
+import io.jenkins.plugins.opsbox.utility.metrics.OpsboxMetrics;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class BuildNameIndexTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    private FreeStyleProject sourceJob;
+
+    @Before
+    public void setUp() throws Exception {
+        BuildNameIndex.clear();
+        DisplayNameIndex.clear();
+        sourceJob = jenkins.createFreeStyleProject("index-source");
+    }
+
+    @Test
+    public void testNewBuildIsAddedToExistingEntry() throws Exception {
+        FreeStyleBuild first = jenkins.buildAndAssertSuccess(sourceJob);
+        first.setDisplayName("1.0.0");
+
+        assertEquals(List.of("1.0.0"), BuildNameIndex.getBuildNames(sourceJob, 5));
+        assertEquals(1, BuildNameIndex.size());
+
+        FreeStyleBuild second = jenkins.buildAndAssertSuccess(sourceJob);
+        second.setDisplayName("1.0.1");
+
+        // 新构建由监听器写入索引，最新的排在最前
+        assertEquals(List.of("1.0.1", "1.0.0"), BuildNameIndex.getBuildNames(sourceJob, 5));
+    }
+
+    @Test
+    public void testDisplayNameChangeIsReflected() throws Exception {
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(sourceJob);
+        build.setDisplayName("before");
+        assertEquals(List.of("before"), BuildNameIndex.getBuildNames(sourceJob, 5));
+
+        build.setDisplayName("after");
+        assertEquals(List.of("after"), BuildNameIndex.getBuildNames(sourceJob, 5));
+    }
+
+    @Test
+    public void testDeletedBuildIsRemoved() throws Exception {
+        FreeStyleBuild first = jenkins.buildAndAssertSuccess(sourceJob);
+        first.setDisplayName("1.0.0");
+        FreeStyleBuild second = jenkins.buildAndAssertSuccess(sourceJob);
+        second.setDisplayName("1.0.1");
+
+        assertEquals(List.of("1.0.1", "1.0.0"), BuildNameIndex.getBuildNames(sourceJob, 5));
+
+        second.delete();
+        assertEquals(List.of("1.0.0"), BuildNameIndex.getBuildNames(sourceJob, 5));
+    }
+
+    @Test
+    public void testFailedBuildIsNotIndexed() throws Exception {
+        FreeStyleBuild success = jenkins.buildAndAssertSuccess(sourceJob);
+        success.setDisplayName("ok");
+        assertEquals(List.of("ok"), BuildNameIndex.getBuildNames(sourceJob, 5));
+
+        sourceJob.getBuildersList().add(new FailureBuilder());
+        jenkins.assertBuildStatus(Result.FAILURE, sourceJob.scheduleBuild2(0));
+
+        assertEquals(List.of("ok"), BuildNameIndex.getBuildNames(sourceJob, 5));
+    }
+
+    @Test
+    public void testLargerCountTriggersRescan() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            jenkins.buildAndAssertSuccess(sourceJob).setDisplayName("v" + i);
+        }
+
+        assertEquals(List.of("v4", "v3"), BuildNameIndex.getBuildNames(sourceJob, 2));
+        assertEquals(List.of("v4", "v3", "v2", "v1"), BuildNameIndex.getBuildNames(sourceJob, 10));
+    }
+
+    @Test
+    public void testBuildsOlderThanSinceAreExcluded() throws Exception {
+        jenkins.buildAndAssertSuccess(sourceJob).setDisplayName("old");
+        FreeStyleBuild recent = jenkins.buildAndAssertSuccess(sourceJob);
+        recent.setDisplayName("recent");
+        long since = recent.getTimeInMillis();
+
+        // 扫描在第一个早于时间窗口的构建处停止
+        assertEquals(List.of("recent"), BuildNameIndex.getBuildNames(sourceJob, 5, since));
+        // 时间窗口更宽的查询需要重新扫描
+        assertEquals(List.of("recent", "old"), BuildNameIndex.getBuildNames(sourceJob, 5));
+        assertEquals(List.of("recent"), BuildNameIndex.getBuildNames(sourceJob, 5, since));
+
+        jenkins.buildAndAssertSuccess(sourceJob).setDisplayName("newest");
+        assertEquals(List.of("newest", "recent"), BuildNameIndex.getBuildNames(sourceJob, 5, since));
+    }
+
+    @Test
+    public void testScanBudgetReturnsPartialResult() throws Exception {
+        for (int i = 1; i <= 4; i++) {
+            jenkins.buildAndAssertSuccess(sourceJob).setDisplayName("v" + i);
+        }
+
+        int maxRuns = BuildNameIndex.SCAN_MAX_RUNS;
+        BuildNameIndex.SCAN_MAX_RUNS = 2;
+        try {
+            BuildNameIndex.Lookup lookup = BuildNameIndex.lookup(sourceJob, 5, Long.MIN_VALUE);
+            assertTrue(lookup.truncated());
+            assertEquals(List.of("v4", "v3"), lookup.getBuildNames());
+
+            // 部分结果已经满足的查询不再标记为截断
+            assertFalse(BuildNameIndex.lookup(sourceJob, 2, Long.MIN_VALUE).truncated());
+        } finally {
+            BuildNameIndex.SCAN_MAX_RUNS = maxRuns;
+        }
+
+        BuildNameIndex.Lookup lookup = BuildNameIndex.lookup(sourceJob, 5, Long.MIN_VALUE);
+        assertFalse(lookup.truncated());
+        assertEquals(List.of("v4", "v3", "v2", "v1"), lookup.getBuildNames());
+    }
+
+    @Test
+    public void testDeletedJobIsInvalidated() throws Exception {
+        jenkins.buildAndAssertSuccess(sourceJob);
+        BuildNameIndex.getBuildNames(sourceJob, 5);
+        assertEquals(1, BuildNameIndex.size());
+
+        sourceJob.delete();
+        assertEquals(0, BuildNameIndex.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedJobIsEvicted() throws Exception {
+        FreeStyleProject second = jenkins.createFreeStyleProject("index-second");
+        FreeStyleProject third = jenkins.createFreeStyleProject("index-third");
+        jenkins.buildAndAssertSuccess(sourceJob);
+        jenkins.buildAndAssertSuccess(second);
+        jenkins.buildAndAssertSuccess(third);
+        OpsboxMetrics.reset();
+
+        int maxJobs = BuildNameIndex.MAX_JOBS;
+        BuildNameIndex.MAX_JOBS = 2;
+        try {
+            BuildNameIndex.getBuildNames(sourceJob, 5);
+            Thread.sleep(5);
+            BuildNameIndex.getBuildNames(second, 5);
+            Thread.sleep(5);
+            // 再次访问第一个作业，淘汰的应该是 second
+            BuildNameIndex.getBuildNames(sourceJob, 5);
+            Thread.sleep(5);
+            BuildNameIndex.getBuildNames(third, 5);
+
+            assertTrue(BuildNameIndex.size() <= 2);
+            assertTrue(OpsboxMetrics.CHOICES_INDEX_EVICTED.sum() >= 1);
+
+            long misses = OpsboxMetrics.CHOICES_INDEX_MISS.sum();
+            BuildNameIndex.getBuildNames(second, 5);
+            assertEquals(misses + 1, OpsboxMetrics.CHOICES_INDEX_MISS.sum());
+        } finally {
+            BuildNameIndex.MAX_JOBS = maxJobs;
+        }
+    }
+
+    @Test
+    public void testWeightLimitEvictsEntries() throws Exception {
+        FreeStyleProject second = jenkins.createFreeStyleProject("index-weight");
+        jenkins.buildAndAssertSuccess(sourceJob).setDisplayName("a-long-display-name");
+        jenkins.buildAndAssertSuccess(second).setDisplayName("another-long-display-name");
+
+        BuildNameIndex.getBuildNames(sourceJob, 5);
+        long weight = BuildNameIndex.getWeight();
+        assertTrue(weight > 0);
+
+        long maxWeight = BuildNameIndex.MAX_WEIGHT;
+        BuildNameIndex.MAX_WEIGHT = weight * 3 / 2;
+        try {
+            // 两个条目超出上限，只保留最近访问的一个
+            assertEquals(List.of("another-long-display-name"), BuildNameIndex.getBuildNames(second, 5));
+            assertEquals(1, BuildNameIndex.size());
+            assertTrue(BuildNameIndex.getWeight() <= BuildNameIndex.MAX_WEIGHT);
+        } finally {
+            BuildNameIndex.MAX_WEIGHT = maxWeight;
+        }
+
+        BuildNameIndex.clear();
+        assertEquals(0, BuildNameIndex.getWeight());
+    }
+
+    @Test
+    public void testIdleEntriesExpire() throws Exception {
+        jenkins.buildAndAssertSuccess(sourceJob);
+        BuildNameIndex.getBuildNames(sourceJob, 5);
+        OpsboxMetrics.reset();
+
+        // 刚访问过的条目不会过期
+        BuildNameIndex.expireIdle();
+        assertEquals(1, BuildNameIndex.size());
+
+        long expireAfter = BuildNameIndex.EXPIRE_AFTER_ACCESS_MINUTES;
+        BuildNameIndex.EXPIRE_AFTER_ACCESS_MINUTES = -1;
+        try {
+            BuildNameIndex.expireIdle();
+            assertEquals(0, BuildNameIndex.size());
+            assertEquals(0, BuildNameIndex.getWeight());
+            assertEquals(1, OpsboxMetrics.CHOICES_INDEX_EXPIRED.sum());
+        } finally {
+            BuildNameIndex.EXPIRE_AFTER_ACCESS_MINUTES = expireAfter;
+        }
+    }
+
+    @Test
+    public void testConcurrentMissesShareOneScan() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            jenkins.buildAndAssertSuccess(sourceJob).setDisplayName("v" + i);
+        }
+        BuildNameIndex.clear();
+        OpsboxMetrics.reset();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<List<String>>> calls = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                calls.add(() -> BuildNameIndex.getBuildNames(sourceJob, 5));
+            }
+            for (Future<List<String>> future : pool.invokeAll(calls)) {
+                assertEquals(List.of("v3", "v2", "v1"), future.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        // 扫描在锁外进行，并发的未命中等待同一次扫描
+        assertEquals(1, OpsboxMetrics.CHOICES_SCAN_TIME.getCount());
+    }
+}
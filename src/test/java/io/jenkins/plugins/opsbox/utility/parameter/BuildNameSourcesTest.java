@@ -0,0 +1,78 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import hudson.model.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BuildNameSourcesTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @Before
+    public void setUp() {
+        BuildNameIndex.clear();
+    }
+
+    @Test
+    public void testResolveListAndGlob() throws Exception {
+        Folder release = jenkins.createProject(Folder.class, "release");
+        release.createProject(FreeStyleProject.class, "release-eu");
+        release.createProject(FreeStyleProject.class, "release-us");
+        jenkins.createFreeStyleProject("other");
+
+        assertFalse(BuildNameSources.isMultiSource("release/release-eu"));
+        assertTrue(BuildNameSources.isMultiSource("release/release-eu, other"));
+        assertTrue(BuildNameSources.isMultiSource("release/*"));
+
+        assertEquals(List.of("release/release-eu", "other"),
+                fullNames(BuildNameSources.resolve("release/release-eu, other", null)));
+        assertEquals(List.of("release/release-eu", "release/release-us"),
+                fullNames(BuildNameSources.resolve("release/release-*", null)));
+        // ** 可以跨越文件夹
+        assertEquals(List.of("release/release-eu", "release/release-us"),
+                fullNames(BuildNameSources.resolve("**-??", null)));
+        // 重复的来源只保留一次，不存在的来源被忽略
+        assertEquals(List.of("other", "release/release-us"),
+                fullNames(BuildNameSources.resolve("other, missing, release/*-us, other", null)));
+    }
+
+    @Test
+    public void testBuildsAreMergedByTimestamp() throws Exception {
+        FreeStyleProject eu = jenkins.createFreeStyleProject("release-eu");
+        FreeStyleProject us = jenkins.createFreeStyleProject("release-us");
+        jenkins.buildAndAssertSuccess(eu).setDisplayName("1.0.0-eu");
+        jenkins.buildAndAssertSuccess(us).setDisplayName("1.0.0-us");
+        jenkins.buildAndAssertSuccess(eu).setDisplayName("1.0.1-eu");
+        jenkins.buildAndAssertSuccess(us).setDisplayName("1.0.1-us");
+
+        JobBuildNameParameterDefinition param = new JobBuildNameParameterDefinition("BUILD_NAME", "release-*", null);
+        param.setMaxBuildCount(3);
+        assertEquals(List.of("1.0.1-us", "1.0.1-eu", "1.0.0-us"), param.getChoices());
+    }
+
+    @Test
+    public void testMergeDeduplicatesNames() {
+        BuildNameIndex.Lookup first = new BuildNameIndex.Lookup(List.of(
+                new BuildNameIndex.BuildRecord(2, "1.0.1", 300),
+                new BuildNameIndex.BuildRecord(1, "1.0.0", 100)), false);
+        BuildNameIndex.Lookup second = new BuildNameIndex.Lookup(List.of(
+                new BuildNameIndex.BuildRecord(5, "1.0.1", 200),
+                new BuildNameIndex.BuildRecord(4, "0.9.0", 50)), true);
+
+        BuildNameIndex.Lookup merged = BuildNameSources.merge(List.of(first, second), 5, false);
+        assertEquals(List.of("1.0.1", "1.0.0", "0.9.0"), merged.getBuildNames());
+        assertTrue(merged.truncated());
+    }
+
+    private static List<String> fullNames(List<Job<?, ?>> jobs) {
+        return jobs.stream().map(Job::getFullName).toList();
+    }
+}
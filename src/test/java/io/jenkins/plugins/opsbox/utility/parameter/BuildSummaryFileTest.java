@@ -0,0 +1,132 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Result;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BuildSummaryFileTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    private FreeStyleProject sourceJob;
+
+    @Before
+    public void setUp() throws Exception {
+        BuildNameIndex.clear();
+        sourceJob = jenkins.createFreeStyleProject("summary-source");
+    }
+
+    /**
+     * 文件不存在时第一次读取只提交后台重建，等待完成后再读。
+     */
+    private List<BuildSummaryFile.Summary> readAfterRebuild() throws Exception {
+        BuildSummaryFile.read(sourceJob);
+        BuildSummaryFile.awaitRebuild(sourceJob);
+        return BuildSummaryFile.read(sourceJob);
+    }
+
+    @Test
+    public void testRebuildFromBuildDirectories() throws Exception {
+        jenkins.buildAndAssertSuccess(sourceJob).setDisplayName("1.0.0");
+        jenkins.buildAndAssertSuccess(sourceJob);
+        sourceJob.getBuildersList().add(new FailureBuilder());
+        jenkins.assertBuildStatus(Result.FAILURE, sourceJob.scheduleBuild2(0));
+
+        File file = BuildSummaryFile.fileOf(sourceJob);
+        assertFalse(file.exists());
+
+        // 重建在后台进行，完成之前返回 null，调用方遍历构建
+        assertNull(BuildSummaryFile.read(sourceJob));
+        BuildSummaryFile.awaitRebuild(sourceJob);
+        List<BuildSummaryFile.Summary> summaries = BuildSummaryFile.read(sourceJob);
+        assertNotNull(summaries);
+        assertTrue(file.isFile());
+        assertEquals(3, summaries.size());
+
+        // 构建号倒序，未设置显示名称时使用默认的 #number
+        assertEquals(3, summaries.get(0).number());
+        assertEquals(Result.FAILURE, summaries.get(0).result());
+        assertEquals("#2", summaries.get(1).displayName());
+        assertEquals("1.0.0", summaries.get(2).displayName());
+        assertEquals(Result.SUCCESS, summaries.get(2).result());
+    }
+
+    @Test
+    public void testChangesAreAppended() throws Exception {
+        FreeStyleBuild first = jenkins.buildAndAssertSuccess(sourceJob);
+        assertEquals(1, readAfterRebuild().size());
+
+        first.setDisplayName("renamed");
+        FreeStyleBuild second = jenkins.buildAndAssertSuccess(sourceJob);
+        second.setDisplayName("2.0.0");
+
+        List<BuildSummaryFile.Summary> summaries = BuildSummaryFile.read(sourceJob);
+        assertEquals(2, summaries.size());
+        assertEquals("2.0.0", summaries.get(0).displayName());
+        assertEquals("renamed", summaries.get(1).displayName());
+
+        second.delete();
+        summaries = BuildSummaryFile.read(sourceJob);
+        assertEquals(1, summaries.size());
+        assertEquals(1, summaries.get(0).number());
+    }
+
+    @Test
+    public void testChoicesAfterRestartUseSummary() throws Exception {
+        jenkins.buildAndAssertSuccess(sourceJob).setDisplayName("1.0.0");
+        jenkins.buildAndAssertSuccess(sourceJob).setDisplayName("1.0.1");
+        readAfterRebuild();
+
+        // 模拟重启后内存索引为空
+        BuildNameIndex.clear();
+        assertEquals(List.of("1.0.1", "1.0.0"), BuildNameIndex.getBuildNames(sourceJob, 5));
+    }
+
+    @Test
+    public void testUnchangedSavesAreNotAppended() throws Exception {
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(sourceJob);
+        readAfterRebuild();
+        File file = BuildSummaryFile.fileOf(sourceJob);
+        long length = file.length();
+
+        // 修改描述和保留构建不改变摘要，不追加记录
+        build.setDescription("description");
+        build.keepLog(true);
+        assertEquals(length, file.length());
+
+        build.setDisplayName("1.0.0");
+        assertTrue(file.length() > length);
+        length = file.length();
+
+        // 新构建完成时只追加一条记录
+        jenkins.buildAndAssertSuccess(sourceJob);
+        assertEquals(Integer.BYTES + Byte.BYTES + Long.BYTES + Integer.BYTES + "#2".length(), file.length() - length);
+    }
+
+    @Test
+    public void testParsedSummariesAreReused() throws Exception {
+        jenkins.buildAndAssertSuccess(sourceJob).setDisplayName("1.0.0");
+        List<BuildSummaryFile.Summary> summaries = readAfterRebuild();
+
+        // 没有变化时返回同一份解析结果
+        assertSame(summaries, BuildSummaryFile.read(sourceJob));
+
+        // 追加后缓存的结果就地更新
+        jenkins.buildAndAssertSuccess(sourceJob).setDisplayName("1.0.1");
+        summaries = BuildSummaryFile.read(sourceJob);
+        assertEquals(2, summaries.size());
+        assertEquals("1.0.1", summaries.get(0).displayName());
+        assertSame(summaries, BuildSummaryFile.read(sourceJob));
+    }
+}
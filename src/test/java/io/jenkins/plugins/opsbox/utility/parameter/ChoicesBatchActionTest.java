@@ -0,0 +1,109 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import hudson.model.*;
+import io.jenkins.plugins.opsbox.utility.metrics.OpsboxMetrics;
+import jenkins.model.Jenkins;
+import net.sf.json.JSONObject;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+
+import java.net.URL;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ChoicesBatchActionTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @Before
+    public void setUp() throws Exception {
+        BuildNameIndex.clear();
+
+        FreeStyleProject upstream = jenkins.createFreeStyleProject("upstream");
+        jenkins.buildAndAssertSuccess(upstream).setDisplayName("1.0.0");
+        jenkins.buildAndAssertSuccess(upstream).setDisplayName("1.0.1");
+
+        for (String name : List.of("deploy-eu", "deploy-us")) {
+            FreeStyleProject downstream = jenkins.createFreeStyleProject(name);
+            downstream.addProperty(new ParametersDefinitionProperty(
+                    new JobBuildNameParameterDefinition("BUILD_NAME", "upstream", 5, null, null)));
+        }
+    }
+
+    @Test
+    public void testBatchChoices() throws Exception {
+        OpsboxMetrics.reset();
+
+        JSONObject json = jenkins.getJSON("opsbox-choices/?job=deploy-eu&job=deploy-us&job=missing&upstream=upstream")
+                .getJSONObject().getJSONObject("data");
+
+        JSONObject eu = json.getJSONObject("jobs").getJSONObject("deploy-eu").getJSONObject("BUILD_NAME");
+        assertEquals(List.of("1.0.1", "1.0.0"), eu.getJSONArray("choices"));
+        assertEquals("1.0.1", eu.getString("defaultValue"));
+        assertFalse(eu.getBoolean("truncated"));
+        assertEquals(List.of("1.0.1", "1.0.0"),
+                json.getJSONObject("jobs").getJSONObject("deploy-us").getJSONObject("BUILD_NAME").getJSONArray("choices"));
+        assertEquals(List.of("1.0.1", "1.0.0"),
+                json.getJSONObject("upstream").getJSONObject("upstream").getJSONArray("choices"));
+        assertEquals(List.of("missing"), json.getJSONArray("missing"));
+
+        // 两个下游参数和直接查询的上游作业配置相同，只查询一次
+        assertEquals(1, OpsboxMetrics.CHOICES_INDEX_HIT.sum() + OpsboxMetrics.CHOICES_INDEX_MISS.sum());
+    }
+
+    @Test
+    public void testUnreadableJobIsMissing() throws Exception {
+        jenkins.jenkins.setSecurityRealm(jenkins.createDummySecurityRealm());
+        jenkins.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+                .grant(Jenkins.READ).everywhere().to("reader")
+                .grant(Item.READ).onItems(jenkins.jenkins.getItemByFullName("deploy-eu", Job.class),
+                        jenkins.jenkins.getItemByFullName("upstream", Job.class)).to("reader")
+                .grant(Item.DISCOVER).onItems(jenkins.jenkins.getItemByFullName("deploy-us", Job.class)).to("reader"));
+
+        // 只能发现的作业不会让整个请求失败
+        JSONObject json = jenkins.createWebClient().login("reader")
+                .getJSON("opsbox-choices/?job=deploy-eu&job=deploy-us").getJSONObject().getJSONObject("data");
+        assertTrue(json.getJSONObject("jobs").has("deploy-eu"));
+        assertEquals(List.of("deploy-us"), json.getJSONArray("missing"));
+    }
+
+    @Test
+    public void testBatchChoicesETag() throws Exception {
+        JenkinsRule.WebClient wc = jenkins.createWebClient();
+        wc.getOptions().setThrowExceptionOnFailingStatusCode(false);
+        // 关闭浏览器缓存，直接观察服务端的响应状态
+        wc.getCache().setMaxSize(0);
+
+        for (String query : List.of("", "&maxAgeDays=7")) {
+            URL url = new URL(jenkins.getURL() + "opsbox-choices/?job=deploy-eu&upstream=upstream" + query);
+            WebResponse first = wc.getPage(new WebRequest(url)).getWebResponse();
+            assertEquals(200, first.getStatusCode());
+            String etag = first.getResponseHeaderValue("ETag");
+            assertNotNull(etag);
+
+            // 有时间窗口时，窗口内的构建不变 ETag 也不变
+            WebRequest conditional = new WebRequest(url);
+            conditional.setAdditionalHeader("If-None-Match", etag);
+            assertEquals(304, wc.getPage(conditional).getWebResponse().getStatusCode());
+        }
+
+        URL url = new URL(jenkins.getURL() + "opsbox-choices/?job=deploy-eu");
+        String etag = wc.getPage(new WebRequest(url)).getWebResponse().getResponseHeaderValue("ETag");
+
+        // 上游构建变化后 ETag 随之改变
+        jenkins.buildAndAssertSuccess(jenkins.jenkins.getItemByFullName("upstream", FreeStyleProject.class))
+                .setDisplayName("1.0.2");
+        WebRequest conditional = new WebRequest(url);
+        conditional.setAdditionalHeader("If-None-Match", etag);
+        WebResponse changed = wc.getPage(conditional).getWebResponse();
+        assertEquals(200, changed.getStatusCode());
+        assertTrue(changed.getContentAsString().contains("1.0.2"));
+    }
+}
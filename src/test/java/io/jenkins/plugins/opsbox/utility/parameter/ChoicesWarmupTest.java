@@ -0,0 +1,56 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import hudson.model.*;
+import io.jenkins.plugins.opsbox.utility.metrics.OpsboxMetrics;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ChoicesWarmupTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    private JobBuildNameParameterDefinition definition;
+
+    @Before
+    public void setUp() throws Exception {
+        FreeStyleProject upstream = jenkins.createFreeStyleProject("upstream");
+        jenkins.buildAndAssertSuccess(upstream).setDisplayName("1.0.0");
+        jenkins.buildAndAssertSuccess(upstream).setDisplayName("1.0.1");
+
+        // 两个下游作业配置相同，只预热一次
+        definition = new JobBuildNameParameterDefinition("BUILD_NAME", "upstream", null);
+        jenkins.createFreeStyleProject("deploy-eu").addProperty(new ParametersDefinitionProperty(definition));
+        jenkins.createFreeStyleProject("deploy-us").addProperty(new ParametersDefinitionProperty(
+                new JobBuildNameParameterDefinition("BUILD_NAME", "upstream", null)));
+        jenkins.createFreeStyleProject("unrelated");
+
+        BuildNameIndex.clear();
+    }
+
+    @Test
+    public void testWarmupPopulatesIndex() throws Exception {
+        assertEquals(1, ChoicesWarmup.start());
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (ChoicesWarmup.isRunning()) {
+            assertTrue("warm-up did not finish", System.currentTimeMillis() < deadline);
+            Thread.sleep(20);
+        }
+        assertEquals(1, ChoicesWarmup.getDone());
+        assertEquals(0, ChoicesWarmup.getFailed());
+        assertEquals(1, BuildNameIndex.size());
+
+        // 打开参数页面时直接命中索引
+        OpsboxMetrics.reset();
+        assertEquals(List.of("1.0.1", "1.0.0"), definition.getChoices());
+        assertEquals(1, OpsboxMetrics.CHOICES_INDEX_HIT.sum());
+        assertEquals(0, OpsboxMetrics.CHOICES_INDEX_MISS.sum());
+    }
+}
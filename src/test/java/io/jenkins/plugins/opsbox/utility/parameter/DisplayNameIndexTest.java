@@ -0,0 +1,159 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import hudson.Launcher;
+import hudson.model.*;
+import hudson.model.queue.QueueTaskFuture;
+import hudson.util.OneShotEvent;
+import io.jenkins.plugins.opsbox.utility.metrics.OpsboxMetrics;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.TestBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DisplayNameIndexTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    private FreeStyleProject upstream;
+
+    @Before
+    public void setUp() throws Exception {
+        BuildNameIndex.clear();
+        DisplayNameIndex.clear();
+
+        upstream = jenkins.createFreeStyleProject("upstream");
+        jenkins.buildAndAssertSuccess(upstream).setDisplayName("1.0.0");
+        jenkins.buildAndAssertSuccess(upstream).setDisplayName("1.0.1");
+    }
+
+    @Test
+    public void testResolveByDisplayName() {
+        assertEquals(1, DisplayNameIndex.resolve(upstream, "1.0.0").getNumber());
+        assertEquals(2, DisplayNameIndex.resolve(upstream, "1.0.1").getNumber());
+        assertNull(DisplayNameIndex.resolve(upstream, "9.9.9"));
+        assertEquals(2, DisplayNameIndex.size(upstream));
+    }
+
+    @Test
+    public void testIndexFollowsBuildEvents() throws Exception {
+        assertNotNull(DisplayNameIndex.resolve(upstream, "1.0.0"));
+
+        // 新构建，包括失败的构建，都会进入索引
+        upstream.getBuildersList().add(new FailureBuilder());
+        jenkins.assertBuildStatus(Result.FAILURE, upstream.scheduleBuild2(0)).setDisplayName("1.0.2");
+        assertEquals(3, DisplayNameIndex.resolve(upstream, "1.0.2").getNumber());
+
+        // 改名
+        upstream.getBuildByNumber(2).setDisplayName("1.0.1-renamed");
+        assertNull(DisplayNameIndex.resolve(upstream, "1.0.1"));
+        assertEquals(2, DisplayNameIndex.resolve(upstream, "1.0.1-renamed").getNumber());
+
+        // 删除
+        upstream.getBuildByNumber(1).delete();
+        assertNull(DisplayNameIndex.resolve(upstream, "1.0.0"));
+    }
+
+    @Test
+    public void testSameNameResolvesToNewestBuild() throws Exception {
+        jenkins.buildAndAssertSuccess(upstream).setDisplayName("1.0.0");
+
+        assertEquals(3, DisplayNameIndex.resolve(upstream, "1.0.0").getNumber());
+
+        upstream.getBuildByNumber(3).delete();
+        assertEquals(1, DisplayNameIndex.resolve(upstream, "1.0.0").getNumber());
+    }
+
+    @Test(timeout = 60_000)
+    public void testRunningBuildIsSkipped() throws Exception {
+        OneShotEvent started = new OneShotEvent();
+        OneShotEvent finish = new OneShotEvent();
+        upstream.getBuildersList().add(new TestBuilder() {
+            @Override
+            public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener)
+                    throws InterruptedException, IOException {
+                // 结果和名称已经写入 build.xml，但构建仍在进行
+                build.setResult(Result.SUCCESS);
+                build.setDisplayName("1.0.0");
+                started.signal();
+                finish.block();
+                return true;
+            }
+        });
+        QueueTaskFuture<FreeStyleBuild> running = upstream.scheduleBuild2(0);
+        started.block();
+
+        // 从构建目录重建时包含进行中的同名构建，跳过它继续找更早的
+        Files.deleteIfExists(BuildSummaryFile.fileOf(upstream).toPath());
+        BuildSummaryFile.read(upstream);
+        BuildSummaryFile.awaitRebuild(upstream);
+        DisplayNameIndex.clear();
+        assertEquals(1, DisplayNameIndex.resolve(upstream, "1.0.0").getNumber());
+
+        finish.signal();
+        jenkins.assertBuildStatusSuccess(running);
+    }
+
+    @Test
+    public void testResolveAcrossJobs() throws Exception {
+        FreeStyleProject other = jenkins.createFreeStyleProject("other");
+        jenkins.buildAndAssertSuccess(other).setDisplayName("1.0.0");
+
+        Run<?, ?> run = DisplayNameIndex.resolve(List.of(upstream, other), "1.0.0");
+        assertSame(other.getBuildByNumber(1), run);
+    }
+
+    @Test
+    public void testEntriesCountTowardIndexLimits() throws Exception {
+        FreeStyleProject other = jenkins.createFreeStyleProject("other");
+        jenkins.buildAndAssertSuccess(other).setDisplayName("2.0.0");
+
+        assertNotNull(DisplayNameIndex.resolve(upstream, "1.0.0"));
+        long weight = BuildNameIndex.getWeight();
+        assertTrue(weight > 0);
+
+        // 改名后权重随之变化
+        upstream.getBuildByNumber(1).setDisplayName("1.0.0-renamed");
+        assertEquals(weight + "-renamed".length(), BuildNameIndex.getWeight());
+
+        OpsboxMetrics.reset();
+        int maxJobs = BuildNameIndex.MAX_JOBS;
+        BuildNameIndex.MAX_JOBS = 1;
+        try {
+            Thread.sleep(5);
+            // 两个作业超出上限，淘汰最久未访问的 upstream
+            assertNotNull(DisplayNameIndex.resolve(other, "2.0.0"));
+            assertEquals(1, DisplayNameIndex.size());
+            assertEquals(0, DisplayNameIndex.size(upstream));
+            assertEquals(1, OpsboxMetrics.CHOICES_INDEX_EVICTED.sum());
+        } finally {
+            BuildNameIndex.MAX_JOBS = maxJobs;
+        }
+
+        DisplayNameIndex.clear();
+        assertEquals(0, BuildNameIndex.getWeight());
+    }
+
+    @Test
+    public void testIdleEntriesExpire() {
+        assertNotNull(DisplayNameIndex.resolve(upstream, "1.0.0"));
+
+        long expireAfter = BuildNameIndex.EXPIRE_AFTER_ACCESS_MINUTES;
+        BuildNameIndex.EXPIRE_AFTER_ACCESS_MINUTES = -1;
+        try {
+            BuildNameIndex.expireIdle();
+            assertEquals(0, DisplayNameIndex.size());
+            assertEquals(0, BuildNameIndex.getWeight());
+        } finally {
+            BuildNameIndex.EXPIRE_AFTER_ACCESS_MINUTES = expireAfter;
+        }
+    }
+}
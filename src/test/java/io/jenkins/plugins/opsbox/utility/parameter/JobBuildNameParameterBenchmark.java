@@ -0,0 +1,117 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import com.cloudbees.hudson.plugins.folder.Folder;
+import hudson.Launcher;
+import hudson.model.AbstractBuild;
+import hudson.model.BuildListener;
+import hudson.model.FreeStyleProject;
+import hudson.model.Job;
+import hudson.security.AuthorizationStrategy;
+import jenkins.benchmark.jmh.JmhBenchmark;
+import jenkins.benchmark.jmh.JmhBenchmarkState;
+import jenkins.model.Jenkins;
+import org.jvnet.hudson.test.TestBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * jobBuildNameParam 热点路径的基准测试：选项、作业查找和自动补全。
+ * 作业树和上游构建历史的规模由 jobCount/buildCount 控制，上游每三次构建失败一次。
+ */
+@JmhBenchmark
+public class JobBuildNameParameterBenchmark {
+
+    private static final int JOBS_PER_FOLDER = 50;
+
+    public static class JenkinsState extends JmhBenchmarkState {
+
+        @Param({"500"})
+        public int jobCount;
+
+        @Param({"100"})
+        public int buildCount;
+
+        JobBuildNameParameterDefinition byShortName;
+        JobBuildNameParameterDefinition byFullName;
+        JobBuildNameParameterDefinition.DescriptorImpl descriptor;
+        String upstreamFullName;
+
+        @Override
+        public void setup() throws Exception {
+            Jenkins jenkins = Jenkins.get();
+            jenkins.setAuthorizationStrategy(AuthorizationStrategy.UNSECURED);
+            jenkins.setNumExecutors(2);
+
+            Folder folder = null;
+            for (int i = 0; i < jobCount; i++) {
+                if (i % JOBS_PER_FOLDER == 0) {
+                    folder = jenkins.createProject(Folder.class, "team-" + i / JOBS_PER_FOLDER);
+                }
+                folder.createProject(FreeStyleProject.class, "job-" + i);
+            }
+
+            if (folder == null) {
+                folder = jenkins.createProject(Folder.class, "team-0");
+            }
+            FreeStyleProject upstream = folder.createProject(FreeStyleProject.class, "upstream");
+            upstream.setQuietPeriod(0);
+            upstream.getBuildersList().add(new NoisyBuilder());
+            for (int i = 0; i < buildCount; i++) {
+                upstream.scheduleBuild2(0).get().setDisplayName("1.0." + i);
+            }
+            upstreamFullName = upstream.getFullName();
+
+            byShortName = new JobBuildNameParameterDefinition("BUILD_NAME", "upstream", null);
+            byFullName = new JobBuildNameParameterDefinition("BUILD_NAME", upstreamFullName, null);
+            descriptor = jenkins.getDescriptorByType(JobBuildNameParameterDefinition.DescriptorImpl.class);
+        }
+    }
+
+    /**
+     * 上游作业中混入失败构建，使扫描需要跳过不成功的记录。
+     */
+    public static class NoisyBuilder extends TestBuilder {
+
+        @Override
+        public boolean perform(AbstractBuild<?, ?> build, Launcher launcher, BuildListener listener) {
+            return build.getNumber() % 3 != 0;
+        }
+    }
+
+    @Benchmark
+    public void getChoices(JenkinsState state, Blackhole blackhole) {
+        blackhole.consume(state.byFullName.getChoices());
+    }
+
+    @Benchmark
+    public void getChoicesByShortName(JenkinsState state, Blackhole blackhole) {
+        blackhole.consume(state.byShortName.getChoices());
+    }
+
+    @Benchmark
+    public void getChoicesCold(JenkinsState state, Blackhole blackhole) {
+        BuildNameIndex.clear();
+        blackhole.consume(state.byFullName.getChoices());
+    }
+
+    @Benchmark
+    public void findByFullName(JenkinsState state, Blackhole blackhole) {
+        blackhole.consume(JobBuildNameParameterDefinition.find(state.upstreamFullName, Job.class));
+    }
+
+    @Benchmark
+    public void findByShortName(JenkinsState state, Blackhole blackhole) {
+        blackhole.consume(JobBuildNameParameterDefinition.find("upstream", Job.class));
+    }
+
+    @Benchmark
+    public void autoCompleteEmpty(JenkinsState state, Blackhole blackhole) {
+        blackhole.consume(state.descriptor.doAutoCompleteJobName(""));
+    }
+
+    @Benchmark
+    public void autoCompleteSubstring(JenkinsState state, Blackhole blackhole) {
+        blackhole.consume(state.descriptor.doAutoCompleteJobName("ob-1"));
+    }
+}
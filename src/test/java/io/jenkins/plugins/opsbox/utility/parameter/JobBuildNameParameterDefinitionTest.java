@@ -1,5 +1,6 @@
 package io.jenkins.plugins.opsbox.utility.parameter;
 
+import com.cloudbees.hudson.plugins.folder.Folder;
 import hudson.Launcher;
 import hudson.model.*;
 import hudson.security.ACL;
@@ -13,11 +14,14 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.jvnet.hudson.test.JenkinsRule;
 import org.jvnet.hudson.test.TestBuilder;
+import org.htmlunit.WebRequest;
+import org.htmlunit.WebResponse;
 import org.kohsuke.stapler.StaplerRequest;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.io.IOException;
+import java.net.URL;
 import java.util.List;
 
 import static org.junit.Assert.*;
@@ -126,6 +130,82 @@ public class JobBuildNameParameterDefinitionTest {
         assertNotNull(defaultValue.getValue());
     }
 
+    @Test
+    public void testChoicesSnapshot() throws Exception {
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(sourceJob);
+        build.setDisplayName("snapshot-1.0.0");
+
+        ChoicesSnapshot snapshot = parameterDefinition.getChoicesSnapshot();
+        assertEquals(List.of("snapshot-1.0.0"), snapshot.getChoices());
+        // 默认值与导出的选项来自同一份快照
+        assertEquals(parameterDefinition.getDefaultParameterValue().getValue(), snapshot.getDefaultValue());
+    }
+
+    @Test
+    public void testChoicesEndpointPaging() throws Exception {
+        for (int i = 1; i <= 3; i++) {
+            FreeStyleBuild build = jenkins.buildAndAssertSuccess(sourceJob);
+            build.setDisplayName("page-" + i);
+        }
+
+        String url = "descriptorByName/" + JobBuildNameParameterDefinition.class.getName()
+            + "/choices?jobName=source-job&limit=2&offset=";
+
+        JSONObject first = jenkins.getJSON(url + "0").getJSONObject().getJSONObject("data");
+        assertEquals(List.of("page-3", "page-2"), first.getJSONArray("choices"));
+        assertTrue(first.getBoolean("hasMore"));
+
+        // 加载更多可以超过 maxBuildCount
+        JSONObject second = jenkins.getJSON(url + "2").getJSONObject().getJSONObject("data");
+        assertEquals(List.of("page-1"), second.getJSONArray("choices"));
+        assertFalse(second.getBoolean("hasMore"));
+    }
+
+    @Test
+    public void testChoicesEndpointETag() throws Exception {
+        jenkins.buildAndAssertSuccess(sourceJob).setDisplayName("etag-1");
+
+        String url = jenkins.getURL() + "descriptorByName/" + JobBuildNameParameterDefinition.class.getName()
+            + "/choices?jobName=source-job&limit=5&offset=0";
+        JenkinsRule.WebClient wc = jenkins.createWebClient();
+        wc.getOptions().setThrowExceptionOnFailingStatusCode(false);
+        // 关闭浏览器缓存，直接观察服务端的响应状态
+        wc.getCache().setMaxSize(0);
+
+        WebResponse first = wc.getPage(new WebRequest(new URL(url))).getWebResponse();
+        assertEquals(200, first.getStatusCode());
+        String etag = first.getResponseHeaderValue("ETag");
+        assertNotNull(etag);
+
+        WebRequest conditional = new WebRequest(new URL(url));
+        conditional.setAdditionalHeader("If-None-Match", etag);
+        assertEquals(304, wc.getPage(conditional).getWebResponse().getStatusCode());
+
+        // 上游构建变化后 ETag 随之改变
+        jenkins.buildAndAssertSuccess(sourceJob).setDisplayName("etag-2");
+        WebResponse changed = wc.getPage(conditional).getWebResponse();
+        assertEquals(200, changed.getStatusCode());
+        assertNotEquals(etag, changed.getResponseHeaderValue("ETag"));
+        assertTrue(changed.getContentAsString().contains("etag-2"));
+    }
+
+    @Test
+    public void testResolveEndpoint() throws Exception {
+        jenkins.buildAndAssertSuccess(sourceJob).setDisplayName("1.4.2-17+abc");
+        jenkins.buildAndAssertSuccess(sourceJob).setDisplayName("1.4.3-18+def");
+
+        String url = "descriptorByName/" + JobBuildNameParameterDefinition.class.getName() + "/resolve?jobName=source-job&name=";
+        JSONObject data = jenkins.getJSON(url + "1.4.2-17%2Babc").getJSONObject().getJSONObject("data");
+        assertEquals("source-job", data.getString("job"));
+        assertEquals(1, data.getInt("number"));
+        assertEquals("SUCCESS", data.getString("result"));
+
+        // 找不到时返回错误
+        JenkinsRule.WebClient wc = jenkins.createWebClient();
+        wc.getOptions().setThrowExceptionOnFailingStatusCode(false);
+        assertEquals("error", wc.getJSON(url + "9.9.9").getJSONObject().getString("status"));
+    }
+
     @Test
     public void testCreateValueFromString() {
         // 首先我们需要有一些选择
@@ -610,4 +690,30 @@ public class JobBuildNameParameterDefinitionTest {
             assertFalse("Anonymous should not see job builds", choices.contains("acl-test-build-anonymous-1.0.0"));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testJobNameIsResolvedRelativeToOwner() throws Exception {
+        Folder teamA = jenkins.createProject(Folder.class, "team-a");
+        Folder teamB = jenkins.createProject(Folder.class, "team-b");
+        jenkins.buildAndAssertSuccess(jenkins.createFreeStyleProject("upstream")).setDisplayName("root-1.0.0");
+        jenkins.buildAndAssertSuccess(teamA.createProject(FreeStyleProject.class, "upstream")).setDisplayName("a-1.0.0");
+        jenkins.buildAndAssertSuccess(teamB.createProject(FreeStyleProject.class, "upstream")).setDisplayName("b-1.0.0");
+
+        FreeStyleProject consumer = teamA.createProject(FreeStyleProject.class, "consumer");
+        JobBuildNameParameterDefinition sibling = new JobBuildNameParameterDefinition("SIBLING", "upstream", null);
+        JobBuildNameParameterDefinition cousin = new JobBuildNameParameterDefinition("COUSIN", "../team-b/upstream", null);
+        JobBuildNameParameterDefinition absolute = new JobBuildNameParameterDefinition("ABSOLUTE", "/upstream", null);
+        consumer.addProperty(new ParametersDefinitionProperty(sibling, cousin, absolute));
+
+        // 同名作业优先取所属作业所在文件夹中的那个
+        assertEquals(List.of("a-1.0.0"), sibling.getChoices());
+        assertEquals(List.of("b-1.0.0"), cousin.getChoices());
+        assertEquals(List.of("root-1.0.0"), absolute.getChoices());
+
+        // 复制到另一个文件夹后解析到新文件夹中的同名作业
+        FreeStyleProject copy = teamB.copy(consumer, "consumer");
+        JobBuildNameParameterDefinition copied = (JobBuildNameParameterDefinition)
+                copy.getProperty(ParametersDefinitionProperty.class).getParameterDefinition("SIBLING");
+        assertEquals(List.of("b-1.0.0"), copied.getChoices());
+    }
+}
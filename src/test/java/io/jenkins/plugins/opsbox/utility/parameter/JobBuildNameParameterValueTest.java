@@ -0,0 +1,116 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import hudson.model.*;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+import static org.junit.Assert.*;
+
+public class JobBuildNameParameterValueTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    private FreeStyleProject upstream;
+    private JobBuildNameParameterDefinition definition;
+
+    @Before
+    public void setUp() throws Exception {
+        BuildNameIndex.clear();
+
+        upstream = jenkins.createFreeStyleProject("upstream");
+        jenkins.buildAndAssertSuccess(upstream).setDisplayName("1.0.0");
+        jenkins.buildAndAssertSuccess(upstream).setDisplayName("1.0.1");
+
+        definition = new JobBuildNameParameterDefinition("BUILD_NAME", "upstream", null);
+    }
+
+    @Test
+    public void testValueRecordsUpstreamBuild() {
+        JobBuildNameParameterValue value = (JobBuildNameParameterValue) definition.createValue("1.0.0");
+
+        assertEquals("1.0.0", value.getValue());
+        assertTrue(value.hasBuild());
+        assertEquals("upstream", value.getJobFullName());
+        assertEquals(1, value.getBuildNumber());
+        assertSame(upstream.getBuildByNumber(1), value.getBuild());
+    }
+
+    @Test
+    public void testDefaultValueRecordsUpstreamBuild() throws Exception {
+        JobBuildNameParameterDefinition withDefault =
+                new JobBuildNameParameterDefinition("BUILD_NAME", "upstream", 5, "1.0.1", null);
+        FreeStyleProject downstream = jenkins.createFreeStyleProject("downstream");
+        downstream.addProperty(new ParametersDefinitionProperty(withDefault));
+
+        // 没有显式传值的构建使用默认值，同样记录上游构建
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(downstream);
+        JobBuildNameParameterValue value =
+                (JobBuildNameParameterValue) build.getAction(ParametersAction.class).getParameter("BUILD_NAME");
+        assertEquals("1.0.1", value.getValue());
+        assertEquals("upstream", value.getJobFullName());
+        assertEquals(2, value.getBuildNumber());
+    }
+
+    @Test
+    public void testMissingDefaultValueUsesFirstChoice() {
+        JobBuildNameParameterDefinition withoutDefault =
+                new JobBuildNameParameterDefinition("BUILD_NAME", "upstream", 5, null, null);
+
+        // 没有配置默认值时与页面一致，取最新的构建
+        JobBuildNameParameterValue value = (JobBuildNameParameterValue) withoutDefault.getDefaultParameterValue();
+        assertEquals("1.0.1", value.getValue());
+        assertEquals(2, value.getBuildNumber());
+    }
+
+    @Test
+    public void testPlaceholderDefaultValueIsNotLookedUp() {
+        BuildNameIndex.clear();
+
+        // 占位的默认名称不会对应构建，不查找也不建立索引
+        JobBuildNameParameterValue value = (JobBuildNameParameterValue) definition.getDefaultParameterValue();
+        assertEquals("0.0.1-1+999", value.getValue());
+        assertFalse(value.hasBuild());
+        assertEquals(0, BuildNameIndex.size());
+    }
+
+    @Test
+    public void testUnknownNameKeepsOnlyTheName() {
+        JobBuildNameParameterValue value = (JobBuildNameParameterValue) definition.createValue("9.9.9");
+
+        assertEquals("9.9.9", value.getValue());
+        assertFalse(value.hasBuild());
+        assertNull(value.getBuild());
+    }
+
+    @Test
+    public void testValueSurvivesBuildReload() throws Exception {
+        FreeStyleProject downstream = jenkins.createFreeStyleProject("downstream");
+        downstream.addProperty(new ParametersDefinitionProperty(definition));
+
+        FreeStyleBuild build = jenkins.assertBuildStatusSuccess(downstream.scheduleBuild2(0,
+                new ParametersAction(definition.createValue("1.0.1"))));
+        build.reload();
+
+        JobBuildNameParameterValue value = (JobBuildNameParameterValue) build.getAction(ParametersAction.class)
+                .getParameter("BUILD_NAME");
+        assertEquals("1.0.1", value.getValue());
+        assertEquals(2, value.getBuildNumber());
+    }
+
+    @Test
+    public void testParamsStillReturnsDisplayName() throws Exception {
+        WorkflowJob pipeline = jenkins.createProject(WorkflowJob.class, "pipeline");
+        pipeline.addProperty(new ParametersDefinitionProperty(definition));
+        pipeline.setDefinition(new CpsFlowDefinition("echo \"selected=${params.BUILD_NAME}\"", true));
+
+        WorkflowRun run = jenkins.assertBuildStatusSuccess(pipeline.scheduleBuild2(0,
+                new ParametersAction(definition.createValue("1.0.0"))));
+        jenkins.assertLogContains("selected=1.0.0", run);
+    }
+}
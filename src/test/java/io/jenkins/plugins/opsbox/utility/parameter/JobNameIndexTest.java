@@ -0,0 +1,147 @@
+package io.jenkins.plugins.opsbox.utility.parameter;
+
+import hudson.model.FreeStyleBuild;
+import hudson.model.FreeStyleProject;
+import hudson.model.Item;
+import hudson.model.User;
+import hudson.security.ACL;
+import hudson.security.ACLContext;
+import hudson.util.FormValidation;
+import jenkins.model.Jenkins;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+import org.jvnet.hudson.test.MockAuthorizationStrategy;
+import org.jvnet.hudson.test.MockFolder;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class JobNameIndexTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    @Test
+    public void testIndexTracksCreatedJobs() throws Exception {
+        assertTrue(JobNameIndex.isLoaded());
+
+        MockFolder folder = jenkins.createFolder("team-a");
+        folder.createProject(FreeStyleProject.class, "release");
+
+        assertEquals(List.of("team-a/release"), JobNameIndex.getFullNames("release"));
+        assertTrue(JobNameIndex.getFullNames("missing").isEmpty());
+    }
+
+    @Test
+    public void testShortNameResolvesJobInFolder() throws Exception {
+        MockFolder folder = jenkins.createFolder("team-a");
+        FreeStyleProject job = folder.createProject(FreeStyleProject.class, "release");
+        FreeStyleBuild build = jenkins.buildAndAssertSuccess(job);
+        build.setDisplayName("folder-release-1.0.0");
+
+        JobBuildNameParameterDefinition param = new JobBuildNameParameterDefinition(
+            "BUILD_NAME", "release", "Short name lookup"
+        );
+        assertEquals(List.of("folder-release-1.0.0"), param.getChoices());
+    }
+
+    @Test
+    public void testAmbiguousShortNameIsDeterministic() throws Exception {
+        MockFolder folderB = jenkins.createFolder("team-b");
+        FreeStyleProject jobB = folderB.createProject(FreeStyleProject.class, "release");
+        MockFolder folderA = jenkins.createFolder("team-a");
+        FreeStyleProject jobA = folderA.createProject(FreeStyleProject.class, "release");
+
+        // 结果按全名排序，与创建顺序无关
+        assertEquals(List.of("team-a/release", "team-b/release"), JobNameIndex.getFullNames("release"));
+
+        JobBuildNameParameterDefinition.DescriptorImpl descriptor =
+            new JobBuildNameParameterDefinition.DescriptorImpl();
+        FormValidation validation = descriptor.doCheckJobName("release", jobB);
+        assertEquals(FormValidation.Kind.WARNING, validation.kind);
+
+        validation = descriptor.doCheckJobName("team-a/release", jobA);
+        assertEquals(FormValidation.Kind.OK, validation.kind);
+    }
+
+    @Test
+    public void testRenameAndDeleteUpdateIndex() throws Exception {
+        FreeStyleProject job = jenkins.createFreeStyleProject("old-name");
+        assertEquals(List.of("old-name"), JobNameIndex.getFullNames("old-name"));
+
+        job.renameTo("new-name");
+        assertTrue(JobNameIndex.getFullNames("old-name").isEmpty());
+        assertEquals(List.of("new-name"), JobNameIndex.getFullNames("new-name"));
+
+        job.delete();
+        assertTrue(JobNameIndex.getFullNames("new-name").isEmpty());
+    }
+
+    @Test
+    public void testDeletingFolderRemovesDescendants() throws Exception {
+        MockFolder folder = jenkins.createFolder("team-c");
+        folder.createProject(FreeStyleProject.class, "nested");
+        assertEquals(List.of("team-c/nested"), JobNameIndex.getFullNames("nested"));
+
+        folder.delete();
+        assertTrue(JobNameIndex.getFullNames("nested").isEmpty());
+    }
+
+    @Test
+    public void testSearchRanksPrefixMatchesFirst() throws Exception {
+        jenkins.createFreeStyleProject("deploy-web");
+        jenkins.createFreeStyleProject("app-deploy");
+        MockFolder folder = jenkins.createFolder("prod");
+        folder.createProject(FreeStyleProject.class, "deploy-api");
+
+        // 全名前缀 > 路径段前缀 > 子串
+        assertEquals(List.of("deploy-web", "prod/deploy-api", "app-deploy"), JobNameIndex.search("deploy", 10));
+        assertEquals(List.of("deploy-web"), JobNameIndex.search("DEPLOY", 1));
+        assertEquals(List.of("prod/deploy-api"), JobNameIndex.search("y-a", 10));
+    }
+
+    @Test
+    public void testCaseVariantOfQueryRanksFirst() throws Exception {
+        jenkins.createFreeStyleProject("Foo");
+        jenkins.createFreeStyleProject("foo-api");
+        MockFolder folder = jenkins.createFolder("prod");
+        folder.createProject(FreeStyleProject.class, "foo");
+        jenkins.createFreeStyleProject("bar-foo");
+
+        // 只有大小写不同的完全匹配同样属于前缀匹配，排在路径段和子串匹配之前
+        assertEquals(List.of("Foo", "foo-api", "prod/foo", "bar-foo"), JobNameIndex.search("foo", 10));
+        assertEquals(List.of("Foo"), JobNameIndex.search("FOO", 1));
+    }
+
+    @Test
+    public void testAutoCompleteIsCapped() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            jenkins.createFreeStyleProject("job-" + i);
+        }
+
+        JobBuildNameParameterDefinition.DescriptorImpl descriptor =
+            new JobBuildNameParameterDefinition.DescriptorImpl();
+        assertEquals(20, descriptor.doAutoCompleteJobName("").getValues().size());
+        assertEquals(20, descriptor.doAutoCompleteJobName("job").getValues().size());
+        assertEquals(List.of("job-7"), descriptor.doAutoCompleteJobName("job-7").getValues());
+    }
+
+    @Test
+    public void testDiscoverOnlyJobsAreSkipped() throws Exception {
+        FreeStyleProject visible = jenkins.createFreeStyleProject("deploy-visible");
+        FreeStyleProject hidden = jenkins.createFreeStyleProject("deploy-hidden");
+        jenkins.jenkins.setSecurityRealm(jenkins.createDummySecurityRealm());
+        jenkins.jenkins.setAuthorizationStrategy(new MockAuthorizationStrategy()
+                .grant(Jenkins.READ).everywhere().to("alice")
+                .grant(Item.READ).onItems(visible).to("alice")
+                .grant(Item.DISCOVER).onItems(hidden).to("alice"));
+
+        // 只有 DISCOVER 权限的作业不出现在补全和通配符结果中，也不会抛出异常
+        try (ACLContext ignored = ACL.as2(User.getById("alice", true).impersonate2())) {
+            assertEquals(List.of("deploy-visible"), JobNameIndex.search("deploy", 10));
+            assertEquals(List.of("deploy-visible"), JobNameIndex.glob("deploy-*", 10));
+        }
+    }
+}
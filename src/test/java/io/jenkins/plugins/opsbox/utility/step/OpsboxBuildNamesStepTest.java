@@ -0,0 +1,60 @@
+package io.jenkins.plugins.opsbox.utility.step;
+
+import hudson.model.*;
+import io.jenkins.plugins.opsbox.utility.parameter.BuildNameIndex;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.FailureBuilder;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class OpsboxBuildNamesStepTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    private WorkflowJob pipeline;
+
+    @Before
+    public void setUp() throws Exception {
+        BuildNameIndex.clear();
+
+        FreeStyleProject upstream = jenkins.createFreeStyleProject("upstream");
+        jenkins.buildAndAssertSuccess(upstream).setDisplayName("1.0.0");
+        jenkins.buildAndAssertSuccess(upstream).setDisplayName("1.0.1");
+        upstream.getBuildersList().add(new FailureBuilder());
+        jenkins.assertBuildStatus(Result.FAILURE, upstream.scheduleBuild2(0)).setDisplayName("1.0.2");
+
+        pipeline = jenkins.createProject(WorkflowJob.class, "pipeline");
+    }
+
+    @Test
+    public void testReturnsSuccessfulBuildNames() throws Exception {
+        pipeline.setDefinition(new CpsFlowDefinition(
+                "def names = opsboxBuildNames(job: 'upstream', limit: 5)\n" +
+                "echo \"names=${names}\"", true));
+
+        WorkflowRun run = jenkins.buildAndAssertSuccess(pipeline);
+        jenkins.assertLogContains("names=[1.0.1, 1.0.0]", run);
+    }
+
+    @Test
+    public void testResultThresholdIncludesFailedBuilds() throws Exception {
+        pipeline.setDefinition(new CpsFlowDefinition(
+                "echo \"names=${opsboxBuildNames(job: 'upstream', limit: 2, result: 'failure')}\"", true));
+
+        WorkflowRun run = jenkins.buildAndAssertSuccess(pipeline);
+        jenkins.assertLogContains("names=[1.0.2, 1.0.1]", run);
+    }
+
+    @Test
+    public void testMissingJobFailsTheStep() throws Exception {
+        pipeline.setDefinition(new CpsFlowDefinition("opsboxBuildNames(job: 'missing')", true));
+
+        WorkflowRun run = jenkins.assertBuildStatus(Result.FAILURE, pipeline.scheduleBuild2(0));
+        jenkins.assertLogContains("No job matches missing", run);
+    }
+}
@@ -0,0 +1,47 @@
+package io.jenkins.plugins.opsbox.utility.step;
+
+import hudson.model.*;
+import io.jenkins.plugins.opsbox.utility.parameter.DisplayNameIndex;
+import org.jenkinsci.plugins.workflow.cps.CpsFlowDefinition;
+import org.jenkinsci.plugins.workflow.job.WorkflowJob;
+import org.jenkinsci.plugins.workflow.job.WorkflowRun;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.jvnet.hudson.test.JenkinsRule;
+
+public class OpsboxResolveBuildStepTest {
+
+    @Rule
+    public JenkinsRule jenkins = new JenkinsRule();
+
+    private WorkflowJob pipeline;
+
+    @Before
+    public void setUp() throws Exception {
+        DisplayNameIndex.clear();
+
+        FreeStyleProject upstream = jenkins.createFreeStyleProject("upstream");
+        jenkins.buildAndAssertSuccess(upstream).setDisplayName("1.4.2-17+abc");
+        jenkins.buildAndAssertSuccess(upstream).setDisplayName("1.4.3-18+def");
+
+        pipeline = jenkins.createProject(WorkflowJob.class, "pipeline");
+    }
+
+    @Test
+    public void testReturnsBuildNumber() throws Exception {
+        pipeline.setDefinition(new CpsFlowDefinition(
+                "echo \"number=${opsboxResolveBuild(job: 'upstream', name: '1.4.2-17+abc')}\"", true));
+
+        WorkflowRun run = jenkins.buildAndAssertSuccess(pipeline);
+        jenkins.assertLogContains("number=1", run);
+    }
+
+    @Test
+    public void testUnknownNameFailsTheStep() throws Exception {
+        pipeline.setDefinition(new CpsFlowDefinition("opsboxResolveBuild(job: 'upstream', name: '9.9.9')", true));
+
+        WorkflowRun run = jenkins.assertBuildStatus(Result.FAILURE, pipeline.scheduleBuild2(0));
+        jenkins.assertLogContains("No build of upstream is named 9.9.9", run);
+    }
+}